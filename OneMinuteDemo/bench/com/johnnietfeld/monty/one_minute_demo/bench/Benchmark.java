@@ -0,0 +1,100 @@
+package com.johnnietfeld.monty.one_minute_demo.bench;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A single measured operation, run many times by the BenchmarkRunner. Each
+ * Benchmark has a name, such as "ImageList.next", and parameters describing
+ * the case being measured, such as the number of images.
+ * 
+ * @author Melody Griesen
+ *
+ */
+public abstract class Benchmark {
+
+	/** Name of the measured operation */
+	private String name;
+	/** Parameters of the measured case, in the order they were added */
+	private LinkedHashMap<String, String> params;
+
+	/**
+	 * Creates a Benchmark with the given name and no parameters
+	 * 
+	 * @param name the name of the measured operation
+	 */
+	protected Benchmark(String name) {
+		this.name = name;
+		this.params = new LinkedHashMap<String, String>();
+	}
+
+	/**
+	 * Adds a parameter describing the measured case
+	 * 
+	 * @param key   the parameter's name
+	 * @param value the parameter's value
+	 * @return this Benchmark
+	 */
+	protected Benchmark param(String key, Object value) {
+		params.put(key, String.valueOf(value));
+		return this;
+	}
+
+	/**
+	 * Simple getter for the name of the measured operation
+	 * 
+	 * @return the name field
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Retrieves the parameters of the measured case
+	 * 
+	 * @return an unmodifiable view of the params field
+	 */
+	public Map<String, String> getParams() {
+		return Collections.unmodifiableMap(params);
+	}
+
+	/**
+	 * Prepares the state the operation runs on. Not measured.
+	 * 
+	 * @throws Exception if the state could not be prepared
+	 */
+	public void setUp() throws Exception {
+		// Nothing to prepare by default
+	}
+
+	/**
+	 * Runs the measured operation the given number of times. The returned value
+	 * must depend on the work done, so that the work cannot be optimized away.
+	 * 
+	 * @param operations the number of times to run the operation
+	 * @return a value computed from the work done
+	 * @throws Exception if the operation fails
+	 */
+	public abstract long run(int operations) throws Exception;
+
+	/**
+	 * Releases the state the operation ran on. Not measured.
+	 * 
+	 * @throws Exception if the state could not be released
+	 */
+	public void tearDown() throws Exception {
+		// Nothing to release by default
+	}
+
+	/**
+	 * Returns the name and parameters of this Benchmark
+	 * 
+	 * @return a String such as "ImageList.next{size=1000}"
+	 */
+	@Override
+	public String toString() {
+		return name + params.toString();
+	}
+
+}
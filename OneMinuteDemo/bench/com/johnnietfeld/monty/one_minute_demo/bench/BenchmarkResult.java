@@ -0,0 +1,192 @@
+package com.johnnietfeld.monty.one_minute_demo.bench;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measured time per operation of one Benchmark, over all of its measurement
+ * iterations.
+ * 
+ * @author Melody Griesen
+ *
+ */
+public class BenchmarkResult {
+
+	/** Header line matching toCsv() */
+	public static final String CSV_HEADER = "benchmark,params,unit,iterations,operations,score,error,min,max";
+
+	/** Name of the measured operation */
+	private String name;
+	/** Parameters of the measured case */
+	private Map<String, String> params;
+	/** Nanoseconds per operation of each measurement iteration */
+	private double[] samples;
+	/** Number of operations run in each measurement iteration */
+	private int operations;
+
+	/**
+	 * Creates a BenchmarkResult from the measured iterations of a Benchmark
+	 * 
+	 * @param benchmark  the measured Benchmark
+	 * @param samples    nanoseconds per operation of each measurement iteration
+	 * @param operations number of operations run in each measurement iteration
+	 */
+	public BenchmarkResult(Benchmark benchmark, double[] samples, int operations) {
+		this.name = benchmark.getName();
+		this.params = benchmark.getParams();
+		this.samples = samples.clone();
+		this.operations = operations;
+	}
+
+	/**
+	 * Simple getter for the name of the measured operation
+	 * 
+	 * @return the name field
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the mean time per operation over all iterations
+	 * 
+	 * @return the mean, in nanoseconds per operation
+	 */
+	public double getScore() {
+		double sum = 0;
+		for (double sample : samples) {
+			sum += sample;
+		}
+		return sum / samples.length;
+	}
+
+	/**
+	 * Gets the standard deviation of the time per operation between iterations
+	 * 
+	 * @return the standard deviation, in nanoseconds per operation
+	 */
+	public double getError() {
+		if (samples.length < 2) {
+			return 0;
+		}
+		double mean = getScore();
+		double sum = 0;
+		for (double sample : samples) {
+			sum += (sample - mean) * (sample - mean);
+		}
+		return Math.sqrt(sum / (samples.length - 1));
+	}
+
+	/**
+	 * Gets the fastest iteration's time per operation
+	 * 
+	 * @return the minimum, in nanoseconds per operation
+	 */
+	public double getMin() {
+		double min = Double.MAX_VALUE;
+		for (double sample : samples) {
+			min = Math.min(min, sample);
+		}
+		return min;
+	}
+
+	/**
+	 * Gets the slowest iteration's time per operation
+	 * 
+	 * @return the maximum, in nanoseconds per operation
+	 */
+	public double getMax() {
+		double max = 0;
+		for (double sample : samples) {
+			max = Math.max(max, sample);
+		}
+		return max;
+	}
+
+	/**
+	 * Formats this result as a JSON object
+	 * 
+	 * @return a single-line JSON object
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\"benchmark\":").append(quote(name));
+		json.append(",\"params\":{");
+		boolean first = true;
+		for (Map.Entry<String, String> param : params.entrySet()) {
+			if (!first) {
+				json.append(',');
+			}
+			first = false;
+			json.append(quote(param.getKey())).append(':').append(quote(param.getValue()));
+		}
+		json.append("},\"mode\":\"avgt\",\"unit\":\"ns/op\"");
+		json.append(",\"iterations\":").append(samples.length);
+		json.append(",\"operations\":").append(operations);
+		json.append(",\"score\":").append(format(getScore()));
+		json.append(",\"error\":").append(format(getError()));
+		json.append(",\"min\":").append(format(getMin()));
+		json.append(",\"max\":").append(format(getMax()));
+		json.append('}');
+		return json.toString();
+	}
+
+	/**
+	 * Formats this result as a CSV line matching CSV_HEADER. Parameters are joined
+	 * into one field as key=value pairs separated by semicolons.
+	 * 
+	 * @return a single CSV line
+	 */
+	public String toCsv() {
+		StringBuilder joined = new StringBuilder();
+		for (Map.Entry<String, String> param : params.entrySet()) {
+			if (joined.length() > 0) {
+				joined.append(';');
+			}
+			joined.append(param.getKey()).append('=').append(param.getValue());
+		}
+		return name + "," + joined + ",ns/op," + samples.length + "," + operations + "," + format(getScore()) + ","
+				+ format(getError()) + "," + format(getMin()) + "," + format(getMax());
+	}
+
+	/**
+	 * Returns a human-readable summary of this result
+	 * 
+	 * @return the name, parameters and mean time per operation
+	 */
+	@Override
+	public String toString() {
+		return name + params + ": " + format(getScore()) + " +- " + format(getError()) + " ns/op";
+	}
+
+	/**
+	 * Formats a number of nanoseconds with three decimals
+	 * 
+	 * @param value the number to format
+	 * @return the formatted number, using '.' as the decimal separator
+	 */
+	static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	/**
+	 * Quotes a String as a JSON string
+	 * 
+	 * @param value the String to quote
+	 * @return the quoted, escaped String
+	 */
+	static String quote(String value) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			} else if (c < 0x20) {
+				quoted.append(String.format("\\u%04x", (int) c));
+			} else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+}
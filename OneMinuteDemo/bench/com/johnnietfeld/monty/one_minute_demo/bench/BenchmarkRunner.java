@@ -0,0 +1,153 @@
+package com.johnnietfeld.monty.one_minute_demo.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs Benchmarks and measures their average time per operation. Each
+ * Benchmark is first calibrated to find how many operations fill one
+ * iteration, then run for a number of unmeasured warmup iterations so the JIT
+ * compiler can settle, and finally for a number of measured iterations.
+ * 
+ * @author Melody Griesen
+ *
+ */
+public class BenchmarkRunner {
+
+	/** Default number of unmeasured warmup iterations */
+	public static final int DEFAULT_WARMUP_ITERATIONS = 3;
+	/** Default number of measured iterations */
+	public static final int DEFAULT_MEASUREMENT_ITERATIONS = 5;
+	/** Default target duration of one iteration, in milliseconds */
+	public static final long DEFAULT_ITERATION_MILLIS = 200;
+
+	/** Values returned by benchmarks, kept so that their work is not optimized away */
+	private static volatile long sink;
+
+	/** Number of unmeasured warmup iterations */
+	private int warmupIterations = DEFAULT_WARMUP_ITERATIONS;
+	/** Number of measured iterations */
+	private int measurementIterations = DEFAULT_MEASUREMENT_ITERATIONS;
+	/** Target duration of one iteration, in nanoseconds */
+	private long iterationNanos = DEFAULT_ITERATION_MILLIS * 1000000L;
+
+	/**
+	 * Sets the number of unmeasured warmup iterations
+	 * 
+	 * @param iterations the number of warmup iterations
+	 * @throws IllegalArgumentException if iterations is negative
+	 */
+	public void setWarmupIterations(int iterations) {
+		if (iterations < 0) {
+			throw new IllegalArgumentException("Warmup iterations cannot be negative");
+		}
+		this.warmupIterations = iterations;
+	}
+
+	/**
+	 * Sets the number of measured iterations
+	 * 
+	 * @param iterations the number of measured iterations
+	 * @throws IllegalArgumentException if iterations is less than 1
+	 */
+	public void setMeasurementIterations(int iterations) {
+		if (iterations < 1) {
+			throw new IllegalArgumentException("At least one measured iteration is needed");
+		}
+		this.measurementIterations = iterations;
+	}
+
+	/**
+	 * Sets the target duration of one iteration
+	 * 
+	 * @param millis the target duration in milliseconds
+	 * @throws IllegalArgumentException if millis is less than 1
+	 */
+	public void setIterationMillis(long millis) {
+		if (millis < 1) {
+			throw new IllegalArgumentException("Iterations must last at least one millisecond");
+		}
+		this.iterationNanos = millis * 1000000L;
+	}
+
+	/**
+	 * Runs every Benchmark in order
+	 * 
+	 * @param benchmarks the Benchmarks to run
+	 * @return the result of each Benchmark, in the same order
+	 * @throws Exception if any Benchmark fails
+	 */
+	public List<BenchmarkResult> runAll(List<Benchmark> benchmarks) throws Exception {
+		List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+		for (Benchmark benchmark : benchmarks) {
+			results.add(run(benchmark));
+		}
+		return results;
+	}
+
+	/**
+	 * Runs a single Benchmark
+	 * 
+	 * @param benchmark the Benchmark to run
+	 * @return the measured result
+	 * @throws Exception if the Benchmark fails
+	 */
+	public BenchmarkResult run(Benchmark benchmark) throws Exception {
+		benchmark.setUp();
+		try {
+			int operations = calibrate(benchmark);
+
+			// Let the JIT compiler settle before measuring
+			for (int i = 0; i < warmupIterations; ++i) {
+				time(benchmark, operations);
+			}
+
+			// Measure
+			double[] samples = new double[measurementIterations];
+			for (int i = 0; i < measurementIterations; ++i) {
+				samples[i] = (double) time(benchmark, operations) / operations;
+			}
+			return new BenchmarkResult(benchmark, samples, operations);
+		} finally {
+			benchmark.tearDown();
+		}
+	}
+
+	/**
+	 * Finds how many operations of a Benchmark take about one iteration's target
+	 * duration, by doubling the count until a run takes a tenth of it.
+	 * 
+	 * @param benchmark the Benchmark to calibrate
+	 * @return the number of operations to run per iteration, at least 1
+	 * @throws Exception if the Benchmark fails
+	 */
+	private int calibrate(Benchmark benchmark) throws Exception {
+		// The first run often pays one-time costs, so it is not used
+		time(benchmark, 1);
+		int operations = 1;
+		long elapsed = time(benchmark, operations);
+		while (elapsed < iterationNanos / 10 && operations < Integer.MAX_VALUE / 2) {
+			operations *= 2;
+			elapsed = time(benchmark, operations);
+		}
+		long scaled = Math.max(1, (long) ((double) operations * iterationNanos / Math.max(elapsed, 1)));
+		return (int) Math.min(scaled, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Times one run of a Benchmark
+	 * 
+	 * @param benchmark  the Benchmark to run
+	 * @param operations the number of operations to run
+	 * @return the elapsed time in nanoseconds
+	 * @throws Exception if the Benchmark fails
+	 */
+	private static long time(Benchmark benchmark, int operations) throws Exception {
+		long start = System.nanoTime();
+		long result = benchmark.run(operations);
+		long elapsed = System.nanoTime() - start;
+		sink ^= result;
+		return elapsed;
+	}
+
+}
@@ -0,0 +1,174 @@
+package com.johnnietfeld.monty.one_minute_demo.bench;
+
+import java.awt.Point;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.johnnietfeld.monty.one_minute_demo.model.data.DecodedImageCache;
+import com.johnnietfeld.monty.one_minute_demo.model.io.IOExecution;
+import com.johnnietfeld.monty.one_minute_demo.model.io.OneMinuteDemoIO;
+import com.johnnietfeld.monty.one_minute_demo.model.io.ThumbnailCache;
+import com.johnnietfeld.monty.one_minute_demo.model.manager.Game;
+import com.johnnietfeld.monty.one_minute_demo.model.manager.ImageBuffer;
+import com.johnnietfeld.monty.one_minute_demo.model.manager.PreparedImage;
+
+/**
+ * Benchmarks of reading game folders from disk, with and without the game
+ * manifest, and of filling an ImageBuffer from a game with its files read on
+ * platform or virtual threads.
+ * 
+ * @author Melody Griesen
+ *
+ */
+public final class IOBenchmarks {
+
+	/**
+	 * IOBenchmarks only has static methods
+	 */
+	private IOBenchmarks() {
+	}
+
+	/**
+	 * Makes the IO Benchmarks for the given game folder
+	 * 
+	 * @param gameFolder the game folder to read
+	 * @return the Benchmarks
+	 */
+	public static List<Benchmark> benchmarks(File gameFolder) {
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		benchmarks.add(new ReadGameFolder(gameFolder, true));
+		benchmarks.add(new ReadGameFolder(gameFolder, false));
+		benchmarks.add(new FillBuffer(gameFolder, IOExecution.Mode.PLATFORM));
+		if (IOExecution.isVirtualAvailable()) {
+			benchmarks.add(new FillBuffer(gameFolder, IOExecution.Mode.VIRTUAL));
+		}
+		return benchmarks;
+	}
+
+	/**
+	 * Reads a whole game folder
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	static class ReadGameFolder extends Benchmark {
+		/** The game folder to read */
+		private File gameFolder;
+		/** Whether the game manifest is used */
+		private boolean manifest;
+
+		/**
+		 * Creates the Benchmark for a game folder
+		 * 
+		 * @param gameFolder the game folder to read
+		 * @param manifest   true to read through the game manifest, false to scan
+		 *                   the folder every time
+		 */
+		ReadGameFolder(File gameFolder, boolean manifest) {
+			super("OneMinuteDemoIO.readGameFolder");
+			param("game", gameFolder.getName());
+			param("manifest", manifest);
+			this.gameFolder = gameFolder;
+			this.manifest = manifest;
+		}
+
+		@Override
+		public void setUp() {
+			OneMinuteDemoIO.setUseManifest(manifest);
+			// Make sure an up to date manifest exists before measuring
+			OneMinuteDemoIO.readGameFolder(gameFolder);
+		}
+
+		@Override
+		public long run(int operations) {
+			long sum = 0;
+			for (int i = 0; i < operations; ++i) {
+				Game game = OneMinuteDemoIO.readGameFolder(gameFolder);
+				sum += game.available();
+			}
+			return sum;
+		}
+
+		@Override
+		public void tearDown() {
+			OneMinuteDemoIO.setUseManifest(true);
+		}
+	}
+
+	/**
+	 * Fills an ImageBuffer from a game and takes every image out of it, with the
+	 * image caches disabled so that every image is read and decoded
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	static class FillBuffer extends Benchmark {
+		/** Number of images loaded per operation */
+		private static final int DEPTH = 8;
+		/** The game folder to read */
+		private File gameFolder;
+		/** How image files are read */
+		private IOExecution.Mode mode;
+		/** The game the buffer draws images from */
+		private Game game;
+		/** I/O mode before this benchmark */
+		private IOExecution.Mode savedMode;
+		/** Byte budget of the shared decoded image cache before this benchmark */
+		private long savedBudget;
+		/** Default thumbnail cache before this benchmark */
+		private ThumbnailCache savedThumbnails;
+
+		/**
+		 * Creates the Benchmark for a game folder and I/O mode
+		 * 
+		 * @param gameFolder the game folder to read
+		 * @param mode       how image files are read
+		 */
+		FillBuffer(File gameFolder, IOExecution.Mode mode) {
+			super("ImageBuffer.fill");
+			param("game", gameFolder.getName());
+			param("io", mode.name().toLowerCase(Locale.ROOT));
+			this.gameFolder = gameFolder;
+			this.mode = mode;
+		}
+
+		@Override
+		public void setUp() {
+			game = OneMinuteDemoIO.readGameFolder(gameFolder);
+			game.setCycle(true);
+			savedMode = IOExecution.getMode();
+			IOExecution.setMode(mode);
+
+			// Make every load read and decode the file
+			savedBudget = DecodedImageCache.getShared().getByteBudget();
+			DecodedImageCache.getShared().setByteBudget(0);
+			savedThumbnails = ThumbnailCache.getDefault();
+			ThumbnailCache.setDefault(null);
+		}
+
+		@Override
+		public long run(int operations) throws InterruptedException {
+			long sum = 0;
+			for (int i = 0; i < operations; ++i) {
+				ImageBuffer buffer = new ImageBuffer(DEPTH, game, ImageBenchmarks.DISPLAY_SIZE, new Point(0, 0));
+				for (int j = 0; j < DEPTH; ++j) {
+					PreparedImage image = buffer.takeImage();
+					sum += image.getByteSize();
+					image.release();
+				}
+				buffer.shutdown();
+			}
+			return sum;
+		}
+
+		@Override
+		public void tearDown() {
+			IOExecution.setMode(savedMode);
+			DecodedImageCache.getShared().setByteBudget(savedBudget);
+			ThumbnailCache.setDefault(savedThumbnails);
+		}
+	}
+
+}
@@ -0,0 +1,215 @@
+package com.johnnietfeld.monty.one_minute_demo.bench;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.johnnietfeld.monty.one_minute_demo.model.data.Category;
+import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
+import com.johnnietfeld.monty.one_minute_demo.model.data.DecodedImageCache;
+import com.johnnietfeld.monty.one_minute_demo.model.io.ThumbnailCache;
+import com.johnnietfeld.monty.one_minute_demo.ui.DraggableImage;
+
+/**
+ * Benchmarks of the image hot paths: decoding an image file at display size,
+ * and fitting a decoded image into a category panel. Image files are written
+ * to a temporary directory, and the image caches are disabled while decoding
+ * so that every operation really decodes.
+ * 
+ * @author Melody Griesen
+ *
+ */
+public final class ImageBenchmarks {
+
+	/** Size images are displayed within, roughly one category panel */
+	static final Dimension DISPLAY_SIZE = new Dimension(300, 200);
+	/** Widths of the images decoded by the loadImage benchmarks */
+	private static final int[] SOURCE_WIDTHS = { 640, 1600, 4000 };
+
+	/**
+	 * ImageBenchmarks only has static methods
+	 */
+	private ImageBenchmarks() {
+	}
+
+	/**
+	 * Makes the image Benchmarks
+	 * 
+	 * @return the Benchmarks
+	 */
+	public static List<Benchmark> benchmarks() {
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		for (int width : SOURCE_WIDTHS) {
+			benchmarks.add(new LoadImage(width, DISPLAY_SIZE));
+			benchmarks.add(new LoadImage(width, new Dimension(width, width * 3 / 4)));
+		}
+		benchmarks.add(new FitImage(true));
+		benchmarks.add(new FitImage(false));
+		return benchmarks;
+	}
+
+	/**
+	 * Writes a 4:3 synthetic test image
+	 * 
+	 * @param directory the directory to write the image to
+	 * @param width     the width of the image
+	 * @return the written JPEG file
+	 * @throws IOException if the image could not be written
+	 */
+	static File writeImage(File directory, int width) throws IOException {
+		int height = width * 3 / 4;
+		File file = new File(directory, "bench-" + width + "x" + height + ".jpg");
+		Files.write(file.toPath(), LibraryGenerator.encode(LibraryGenerator.draw(width, height, 0, width), "jpg"));
+		return file;
+	}
+
+	/**
+	 * Makes a temporary directory that is removed when the JVM exits
+	 * 
+	 * @return the directory
+	 * @throws IOException if it could not be made
+	 */
+	static File makeTempDirectory() throws IOException {
+		File directory = File.createTempFile("omg-bench", "");
+		directory.delete();
+		directory.mkdirs();
+		directory.deleteOnExit();
+		return directory;
+	}
+
+	/**
+	 * Loads an image file at a target size with every cache disabled
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	static class LoadImage extends Benchmark {
+		/** Width of the source image */
+		private int width;
+		/** Size the image is loaded to fit */
+		private Dimension target;
+		/** The written source image */
+		private File file;
+		/** Category of the loaded image */
+		private Category category;
+		/** Byte budget of the shared decoded image cache before this benchmark */
+		private long savedBudget;
+		/** Default thumbnail cache before this benchmark */
+		private ThumbnailCache savedThumbnails;
+
+		/**
+		 * Creates the Benchmark for a source image and target size
+		 * 
+		 * @param width  the width of the source image
+		 * @param target the size the image is loaded to fit
+		 */
+		LoadImage(int width, Dimension target) {
+			super("ClassifiedImage.loadImage");
+			param("source", width + "x" + width * 3 / 4);
+			param("target", target.width + "x" + target.height);
+			this.width = width;
+			this.target = target;
+		}
+
+		@Override
+		public void setUp() throws IOException {
+			File directory = makeTempDirectory();
+			file = writeImage(directory, width);
+			file.deleteOnExit();
+			category = new Category("bench");
+
+			// Make every load decode the file
+			savedBudget = DecodedImageCache.getShared().getByteBudget();
+			DecodedImageCache.getShared().setByteBudget(0);
+			savedThumbnails = ThumbnailCache.getDefault();
+			ThumbnailCache.setDefault(null);
+		}
+
+		@Override
+		public long run(int operations) {
+			long sum = 0;
+			for (int i = 0; i < operations; ++i) {
+				ClassifiedImage image = new ClassifiedImage(file.getAbsolutePath(), category, file.getName());
+				image.loadImage(target);
+				sum += image.getLoadedImage().getIconWidth();
+				image.flushLoadedImage();
+			}
+			return sum;
+		}
+
+		@Override
+		public void tearDown() {
+			DecodedImageCache.getShared().setByteBudget(savedBudget);
+			ThumbnailCache.setDefault(savedThumbnails);
+			file.delete();
+			file.getParentFile().delete();
+		}
+	}
+
+	/**
+	 * Fits a decoded image into a category panel, either always at the same size
+	 * or alternating between two sizes so that every fit has to scale
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	static class FitImage extends Benchmark {
+		/** Width of the source image */
+		private static final int WIDTH = 1600;
+		/** Other panel size to alternate with */
+		private static final Dimension OTHER_SIZE = new Dimension(320, 240);
+		/** Whether every fit is at the same size */
+		private boolean sameSize;
+		/** The written source image */
+		private File file;
+		/** The component that fits the image */
+		private DraggableImage draggable;
+
+		/**
+		 * Creates the Benchmark
+		 * 
+		 * @param sameSize true to fit at the same size every time, false to alternate
+		 *                 between two sizes
+		 */
+		FitImage(boolean sameSize) {
+			super("DraggableImage.fitImage");
+			param("sameSize", sameSize);
+			this.sameSize = sameSize;
+		}
+
+		@Override
+		public void setUp() throws IOException {
+			File directory = makeTempDirectory();
+			file = writeImage(directory, WIDTH);
+			file.deleteOnExit();
+			ClassifiedImage image = new ClassifiedImage(file.getAbsolutePath(), new Category("bench"), file.getName());
+			image.loadImage();
+			draggable = new DraggableImage(image);
+		}
+
+		@Override
+		public long run(int operations) {
+			long sum = 0;
+			Point center = new Point(DISPLAY_SIZE.width / 2, DISPLAY_SIZE.height / 2);
+			for (int i = 0; i < operations; ++i) {
+				Dimension size = sameSize || i % 2 == 0 ? DISPLAY_SIZE : OTHER_SIZE;
+				draggable.fitImage(size, center);
+				sum += draggable.getWidth();
+			}
+			return sum;
+		}
+
+		@Override
+		public void tearDown() {
+			draggable.setSource((ClassifiedImage) null);
+			draggable = null;
+			file.delete();
+			file.getParentFile().delete();
+		}
+	}
+
+}
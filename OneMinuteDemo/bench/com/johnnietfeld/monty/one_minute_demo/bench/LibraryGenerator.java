@@ -0,0 +1,441 @@
+package com.johnnietfeld.monty.one_minute_demo.bench;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Writes synthetic game folders for scale and stress testing: a properties.omg
+ * file and one folder of images per category, in the same layout as the games
+ * folder. The number of categories and images, the pixel dimensions and
+ * formats of the images, and a number of deliberately corrupt image files can
+ * all be configured. Generation is deterministic for a given seed.
+ * 
+ * By default every image is drawn and encoded separately. For very large
+ * libraries, setUnique(false) encodes one image per category, format and size
+ * and copies its bytes, which writes hundreds of thousands of files in
+ * minutes.
+ * 
+ * Options of main:
+ * <ul>
+ * <li>--categories N: number of categories, 2 by default. Games accept 2 to
+ * 4</li>
+ * <li>--images N: number of valid images, spread evenly over the categories,
+ * 100 by default</li>
+ * <li>--size WxH or WxH-WxH: pixel dimensions, or a range to pick them from,
+ * 640x480 by default</li>
+ * <li>--formats F,F,...: image formats used in turn, jpg by default</li>
+ * <li>--corrupt N: number of corrupt image files, 0 by default</li>
+ * <li>--unique true|false: whether every image is encoded separately</li>
+ * <li>--seed N: seed of the generated content</li>
+ * </ul>
+ * 
+ * @author Melody Griesen
+ *
+ */
+public class LibraryGenerator {
+
+	/** Name of the game properties file */
+	public static final String PROPERTIES_FILE_NAME = "properties.omg";
+
+	/**
+	 * Kinds of corrupt image files, used in turn
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	public enum Corruption {
+		/** A file with no bytes at all */
+		EMPTY,
+		/** The first half of a valid image file */
+		TRUNCATED,
+		/** Random bytes with an image file extension */
+		GARBAGE
+	}
+
+	/** Number of categories */
+	private int categories = 2;
+	/** Number of valid images */
+	private int images = 100;
+	/** Smallest image width */
+	private int minWidth = 640;
+	/** Smallest image height */
+	private int minHeight = 480;
+	/** Largest image width */
+	private int maxWidth = 640;
+	/** Largest image height */
+	private int maxHeight = 480;
+	/** Image formats used in turn */
+	private String[] formats = { "jpg" };
+	/** Number of corrupt image files */
+	private int corrupt = 0;
+	/** Whether every image is encoded separately */
+	private boolean unique = true;
+	/** Seed of the generated content */
+	private long seed = 1;
+
+	/**
+	 * Sets the number of categories
+	 * 
+	 * @param categories the number of categories
+	 * @throws IllegalArgumentException if categories is less than 1
+	 */
+	public void setCategories(int categories) {
+		if (categories < 1) {
+			throw new IllegalArgumentException("A library needs at least one category");
+		}
+		this.categories = categories;
+	}
+
+	/**
+	 * Sets the number of valid images, spread evenly over the categories
+	 * 
+	 * @param images the number of valid images
+	 * @throws IllegalArgumentException if images is negative
+	 */
+	public void setImages(int images) {
+		if (images < 0) {
+			throw new IllegalArgumentException("Image count cannot be negative");
+		}
+		this.images = images;
+	}
+
+	/**
+	 * Sets the range image dimensions are picked from
+	 * 
+	 * @param minWidth  the smallest image width
+	 * @param minHeight the smallest image height
+	 * @param maxWidth  the largest image width
+	 * @param maxHeight the largest image height
+	 * @throws IllegalArgumentException if a dimension is less than 1, or a
+	 *                                  maximum is less than its minimum
+	 */
+	public void setSize(int minWidth, int minHeight, int maxWidth, int maxHeight) {
+		if (minWidth < 1 || minHeight < 1 || maxWidth < minWidth || maxHeight < minHeight) {
+			throw new IllegalArgumentException("Invalid image size range");
+		}
+		this.minWidth = minWidth;
+		this.minHeight = minHeight;
+		this.maxWidth = maxWidth;
+		this.maxHeight = maxHeight;
+	}
+
+	/**
+	 * Sets the image formats used in turn
+	 * 
+	 * @param formats ImageIO format names, such as jpg, png, gif or bmp
+	 * @throws IllegalArgumentException if no formats are given, or one cannot be
+	 *                                  written
+	 */
+	public void setFormats(String... formats) {
+		if (formats.length == 0) {
+			throw new IllegalArgumentException("At least one format is needed");
+		}
+		for (String format : formats) {
+			if (!ImageIO.getImageWritersByFormatName(format).hasNext()) {
+				throw new IllegalArgumentException("Cannot write images in format " + format);
+			}
+		}
+		this.formats = formats.clone();
+	}
+
+	/**
+	 * Sets the number of corrupt image files
+	 * 
+	 * @param corrupt the number of corrupt image files
+	 * @throws IllegalArgumentException if corrupt is negative
+	 */
+	public void setCorrupt(int corrupt) {
+		if (corrupt < 0) {
+			throw new IllegalArgumentException("Corrupt file count cannot be negative");
+		}
+		this.corrupt = corrupt;
+	}
+
+	/**
+	 * Sets whether every image is drawn and encoded separately, or copied from one
+	 * encoded image per category, format and size
+	 * 
+	 * @param unique true to encode every image separately
+	 */
+	public void setUnique(boolean unique) {
+		this.unique = unique;
+	}
+
+	/**
+	 * Sets the seed of the generated content
+	 * 
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Writes a game folder. The folder must not already hold a game.
+	 * 
+	 * @param gameFolder the folder to write the game to
+	 * @return the number of files written, including the properties file
+	 * @throws IOException              if a file could not be written
+	 * @throws IllegalArgumentException if the folder already holds a game
+	 */
+	public int generate(File gameFolder) throws IOException {
+		File propertiesFile = new File(gameFolder, PROPERTIES_FILE_NAME);
+		if (propertiesFile.exists()) {
+			throw new IllegalArgumentException("Game folder at " + gameFolder.getAbsolutePath() + " already holds a game");
+		}
+
+		// Make the category folders
+		File[] categoryFolders = new File[categories];
+		for (int i = 0; i < categories; ++i) {
+			categoryFolders[i] = new File(gameFolder, "category-" + (i + 1));
+			if (!categoryFolders[i].isDirectory() && !categoryFolders[i].mkdirs()) {
+				throw new IOException("Could not make " + categoryFolders[i].getAbsolutePath());
+			}
+		}
+		writeProperties(propertiesFile);
+		int written = 1;
+
+		Random random = new Random(seed);
+		HashMap<String, byte[]> encoded = new HashMap<String, byte[]>();
+
+		// Write the valid images, spread evenly over the categories
+		for (int i = 0; i < images; ++i) {
+			int category = i % categories;
+			String format = formats[i % formats.length];
+			int width = pick(random, minWidth, maxWidth);
+			int height = pick(random, minHeight, maxHeight);
+			long imageSeed = random.nextLong();
+
+			byte[] bytes;
+			if (unique) {
+				bytes = encode(draw(width, height, category, imageSeed), format);
+			} else {
+				// Reuse one encoded image per category, format and size
+				String key = category + "/" + format + "/" + width + "x" + height;
+				bytes = encoded.get(key);
+				if (bytes == null) {
+					bytes = encode(draw(width, height, category, seed + key.hashCode()), format);
+					encoded.put(key, bytes);
+				}
+			}
+			write(new File(categoryFolders[category], fileName(i, format)), bytes);
+			++written;
+		}
+
+		// Write the corrupt files into random categories
+		Corruption[] kinds = Corruption.values();
+		for (int i = 0; i < corrupt; ++i) {
+			Corruption kind = kinds[i % kinds.length];
+			String format = formats[i % formats.length];
+			byte[] bytes;
+			switch (kind) {
+			case EMPTY:
+				bytes = new byte[0];
+				break;
+			case TRUNCATED:
+				byte[] valid = encode(draw(minWidth, minHeight, 0, random.nextLong()), format);
+				bytes = Arrays.copyOf(valid, valid.length / 2);
+				break;
+			default:
+				bytes = new byte[1024];
+				random.nextBytes(bytes);
+				break;
+			}
+			String name = "corrupt-" + kind.name().toLowerCase() + "-" + fileName(i, format);
+			write(new File(categoryFolders[random.nextInt(categories)], name), bytes);
+			++written;
+		}
+		return written;
+	}
+
+	/**
+	 * Writes the game's properties file
+	 * 
+	 * @param propertiesFile the file to write
+	 * @throws IOException if it could not be written
+	 */
+	private void writeProperties(File propertiesFile) throws IOException {
+		try (PrintWriter writer = new PrintWriter(propertiesFile, "UTF-8")) {
+			writer.println("instructions=Classify each synthetic image into its category.");
+			writer.println("increment=1");
+			writer.println("decrement=-1");
+			writer.println("time=60");
+			writer.println("cycle=true");
+			writer.println("randomize=true");
+			writer.print("require60=false");
+		}
+	}
+
+	/**
+	 * Picks a random number within a range
+	 * 
+	 * @param random the generator to pick with
+	 * @param min    the smallest number
+	 * @param max    the largest number
+	 * @return the picked number
+	 */
+	private static int pick(Random random, int min, int max) {
+		return min == max ? min : min + random.nextInt(max - min + 1);
+	}
+
+	/**
+	 * Makes the file name of an image
+	 * 
+	 * @param index  the index of the image
+	 * @param format the image's format
+	 * @return the file name
+	 */
+	private static String fileName(int index, String format) {
+		return String.format("image-%07d.%s", index, format);
+	}
+
+	/**
+	 * Draws a synthetic image: a diagonal gradient in a hue picked by category,
+	 * with a few random rectangles so that images are not identical
+	 * 
+	 * @param width    the width of the image
+	 * @param height   the height of the image
+	 * @param category the index of the image's category
+	 * @param seed     seed of the random rectangles
+	 * @return the drawn image
+	 */
+	static BufferedImage draw(int width, int height, int category, long seed) {
+		Random random = new Random(seed);
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		float hue = (category * 0.618034f) % 1f;
+		g.setPaint(new GradientPaint(0, 0, Color.getHSBColor(hue, 0.6f, 0.9f), width, height,
+				Color.getHSBColor(hue, 0.9f, 0.3f)));
+		g.fillRect(0, 0, width, height);
+		for (int i = 0; i < 8; ++i) {
+			g.setColor(new Color(random.nextInt(0x1000000)));
+			g.fillRect(random.nextInt(width), random.nextInt(height), 1 + random.nextInt(Math.max(1, width / 4)),
+					1 + random.nextInt(Math.max(1, height / 4)));
+		}
+		g.dispose();
+		return image;
+	}
+
+	/**
+	 * Encodes an image in the given format
+	 * 
+	 * @param image  the image to encode
+	 * @param format the ImageIO format name
+	 * @return the encoded bytes
+	 * @throws IOException if the image could not be encoded
+	 */
+	static byte[] encode(BufferedImage image, String format) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		if (!ImageIO.write(image, format, bytes)) {
+			throw new IOException("Cannot write images in format " + format);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes bytes to a file
+	 * 
+	 * @param file  the file to write
+	 * @param bytes the bytes to write
+	 * @throws IOException if the file could not be written
+	 */
+	private static void write(File file, byte[] bytes) throws IOException {
+		try (OutputStream out = new FileOutputStream(file)) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Writes a game folder from the command line
+	 * 
+	 * @param args the game folder to write, followed by options, see the class
+	 *             description
+	 * @throws IOException if a file could not be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: LibraryGenerator GAME_FOLDER [--categories N] [--images N] [--size WxH[-WxH]]"
+					+ " [--formats F,...] [--corrupt N] [--unique true|false] [--seed N]");
+			System.exit(2);
+		}
+		LibraryGenerator generator = new LibraryGenerator();
+		for (int i = 1; i < args.length; i += 2) {
+			generator.setOption(args[i], i + 1 < args.length ? args[i + 1] : null);
+		}
+		long start = System.nanoTime();
+		int written = generator.generate(new File(args[0]));
+		System.out.println("Wrote " + written + " files to " + args[0] + " in "
+				+ (System.nanoTime() - start) / 1000000 + " ms");
+	}
+
+	/**
+	 * Applies one command line option
+	 * 
+	 * @param option the option's name
+	 * @param value  the option's value
+	 * @throws IllegalArgumentException if the option is unknown or its value is
+	 *                                  missing or invalid
+	 */
+	void setOption(String option, String value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Missing value for " + option);
+		}
+		switch (option) {
+		case "--categories":
+			setCategories(Integer.parseInt(value));
+			break;
+		case "--images":
+			setImages(Integer.parseInt(value));
+			break;
+		case "--size":
+			String[] range = value.split("-", 2);
+			int[] min = parseSize(range[0]);
+			int[] max = range.length > 1 ? parseSize(range[1]) : min;
+			setSize(min[0], min[1], max[0], max[1]);
+			break;
+		case "--formats":
+			setFormats(value.split(","));
+			break;
+		case "--corrupt":
+			setCorrupt(Integer.parseInt(value));
+			break;
+		case "--unique":
+			setUnique(Boolean.parseBoolean(value));
+			break;
+		case "--seed":
+			setSeed(Long.parseLong(value));
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown option " + option);
+		}
+	}
+
+	/**
+	 * Parses a size written as WxH
+	 * 
+	 * @param size the size to parse
+	 * @return the width and height
+	 * @throws IllegalArgumentException if the size is not written as WxH
+	 */
+	private static int[] parseSize(String size) {
+		String[] parts = size.split("x");
+		if (parts.length != 2) {
+			throw new IllegalArgumentException("Sizes must be written as WxH, not " + size);
+		}
+		return new int[] { Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()) };
+	}
+
+}
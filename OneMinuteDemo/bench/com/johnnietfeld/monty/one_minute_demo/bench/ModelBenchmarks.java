@@ -0,0 +1,207 @@
+package com.johnnietfeld.monty.one_minute_demo.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.johnnietfeld.monty.one_minute_demo.model.data.Category;
+import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
+import com.johnnietfeld.monty.one_minute_demo.model.list.ImageList;
+import com.johnnietfeld.monty.one_minute_demo.model.manager.Game;
+
+/**
+ * Benchmarks of the in-memory model: drawing from and building ImageLists, and
+ * scoring images in a Game. No image files are touched.
+ * 
+ * @author Melody Griesen
+ *
+ */
+public final class ModelBenchmarks {
+
+	/**
+	 * ModelBenchmarks only has static methods
+	 */
+	private ModelBenchmarks() {
+	}
+
+	/**
+	 * Makes the model Benchmarks for ImageLists of each of the given sizes
+	 * 
+	 * @param sizes the numbers of images to benchmark ImageLists with
+	 * @return the Benchmarks
+	 */
+	public static List<Benchmark> benchmarks(int[] sizes) {
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		for (int size : sizes) {
+			benchmarks.add(new ImageListNext(size));
+			benchmarks.add(new ImageListSetImages(size));
+		}
+		benchmarks.add(new GameScoreImage(2));
+		benchmarks.add(new GameScoreImage(4));
+		return benchmarks;
+	}
+
+	/**
+	 * Makes ClassifiedImages that are spread evenly over a number of categories.
+	 * The images do not need to exist on disk.
+	 * 
+	 * @param count      the number of images to make
+	 * @param categories the number of categories to spread them over
+	 * @return the images
+	 */
+	static ArrayList<ClassifiedImage> makeImages(int count, int categories) {
+		Category[] made = new Category[categories];
+		for (int i = 0; i < categories; ++i) {
+			made[i] = new Category("category-" + i);
+		}
+		ArrayList<ClassifiedImage> images = new ArrayList<ClassifiedImage>(count);
+		for (int i = 0; i < count; ++i) {
+			String name = "image-" + i + ".jpg";
+			images.add(new ClassifiedImage("synthetic/" + name, made[i % categories], name));
+		}
+		return images;
+	}
+
+	/**
+	 * Draws images from a cycling, reshuffling ImageList
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	static class ImageListNext extends Benchmark {
+		/** Number of images in the list */
+		private int size;
+		/** The list drawn from */
+		private ImageList list;
+
+		/**
+		 * Creates the Benchmark for a list of the given size
+		 * 
+		 * @param size the number of images in the list
+		 */
+		ImageListNext(int size) {
+			super("ImageList.next");
+			param("size", size);
+			this.size = size;
+		}
+
+		@Override
+		public void setUp() {
+			list = new ImageList(makeImages(size, 2));
+			list.setCycle(true);
+			list.setRandomizeCycle(true);
+		}
+
+		@Override
+		public long run(int operations) {
+			long sum = 0;
+			for (int i = 0; i < operations; ++i) {
+				sum += list.next().getName().length();
+			}
+			return sum;
+		}
+
+		@Override
+		public void tearDown() {
+			list = null;
+		}
+	}
+
+	/**
+	 * Builds an ImageList, which copies and shuffles the source images
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	static class ImageListSetImages extends Benchmark {
+		/** Number of images in the list */
+		private int size;
+		/** The images the list is built from */
+		private ArrayList<ClassifiedImage> images;
+
+		/**
+		 * Creates the Benchmark for a list of the given size
+		 * 
+		 * @param size the number of images in the list
+		 */
+		ImageListSetImages(int size) {
+			super("ImageList.setImages");
+			param("size", size);
+			this.size = size;
+		}
+
+		@Override
+		public void setUp() {
+			images = makeImages(size, 2);
+		}
+
+		@Override
+		public long run(int operations) {
+			long sum = 0;
+			for (int i = 0; i < operations; ++i) {
+				sum += new ImageList(images).size();
+			}
+			return sum;
+		}
+
+		@Override
+		public void tearDown() {
+			images = null;
+		}
+	}
+
+	/**
+	 * Scores images against every category of a Game in turn
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	static class GameScoreImage extends Benchmark {
+		/** Number of images in the game */
+		private static final int IMAGES = 1000;
+		/** Number of categories in the game */
+		private int categories;
+		/** The images that are scored */
+		private ArrayList<ClassifiedImage> images;
+		/** The categories images are placed in */
+		private ArrayList<Category> placements;
+		/** The game that scores the images */
+		private Game game;
+
+		/**
+		 * Creates the Benchmark for a game with the given number of categories
+		 * 
+		 * @param categories the number of categories in the game
+		 */
+		GameScoreImage(int categories) {
+			super("Game.scoreImage");
+			param("categories", categories);
+			this.categories = categories;
+		}
+
+		@Override
+		public void setUp() {
+			images = makeImages(IMAGES, categories);
+			game = new Game("Benchmark", new ImageList(images), false);
+
+			// Place images in the game's own categories, as the GUI does
+			placements = new ArrayList<Category>(game.getCategories());
+		}
+
+		@Override
+		public long run(int operations) {
+			long sum = 0;
+			for (int i = 0; i < operations; ++i) {
+				sum += game.scoreImage(images.get(i % IMAGES), placements.get(i % categories));
+			}
+			return sum;
+		}
+
+		@Override
+		public void tearDown() {
+			images = null;
+			placements = null;
+			game = null;
+		}
+	}
+
+}
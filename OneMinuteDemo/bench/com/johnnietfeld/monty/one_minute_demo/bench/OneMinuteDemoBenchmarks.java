@@ -0,0 +1,218 @@
+package com.johnnietfeld.monty.one_minute_demo.bench;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.johnnietfeld.monty.one_minute_demo.model.io.ThumbnailCache;
+
+/**
+ * Runs the benchmark suite of the model and rendering hot paths, and writes the
+ * results as JSON or CSV so that runs of different releases can be compared.
+ * 
+ * Options:
+ * <ul>
+ * <li>--format json|csv: output format, json by default</li>
+ * <li>--out FILE: file to write results to, standard output by default</li>
+ * <li>--filter REGEX: only run benchmarks whose name matches</li>
+ * <li>--warmup N: unmeasured warmup iterations per benchmark</li>
+ * <li>--iterations N: measured iterations per benchmark</li>
+ * <li>--time MILLIS: target duration of one iteration</li>
+ * <li>--sizes N,N,...: ImageList sizes, 1000 to 1000000 by default</li>
+ * <li>--game FOLDER: game folder read by the IO benchmarks</li>
+ * <li>--generate N: read a synthetic game of N images, written to a temporary
+ * folder by the LibraryGenerator, instead of --game</li>
+ * </ul>
+ * 
+ * @author Melody Griesen
+ *
+ */
+public class OneMinuteDemoBenchmarks {
+
+	/** Default ImageList sizes */
+	private static final int[] DEFAULT_SIZES = { 1000, 10000, 100000, 1000000 };
+	/** Default game folder read by the IO benchmarks */
+	private static final String DEFAULT_GAME = "games/tropical-temperate";
+
+	/**
+	 * Runs the benchmark suite
+	 * 
+	 * @param args command line options, see the class description
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner();
+		String format = "json";
+		String out = null;
+		Pattern filter = null;
+		int[] sizes = DEFAULT_SIZES;
+		File game = new File(DEFAULT_GAME);
+		int generate = 0;
+
+		// Read options
+		for (int i = 0; i < args.length; ++i) {
+			String option = args[i];
+			if (i + 1 >= args.length) {
+				throw new IllegalArgumentException("Missing value for " + option);
+			}
+			String value = args[++i];
+			switch (option) {
+			case "--format":
+				if (!value.equals("json") && !value.equals("csv")) {
+					throw new IllegalArgumentException("Unknown format " + value);
+				}
+				format = value;
+				break;
+			case "--out":
+				out = value;
+				break;
+			case "--filter":
+				filter = Pattern.compile(value);
+				break;
+			case "--warmup":
+				runner.setWarmupIterations(Integer.parseInt(value));
+				break;
+			case "--iterations":
+				runner.setMeasurementIterations(Integer.parseInt(value));
+				break;
+			case "--time":
+				runner.setIterationMillis(Long.parseLong(value));
+				break;
+			case "--sizes":
+				String[] split = value.split(",");
+				sizes = new int[split.length];
+				for (int j = 0; j < split.length; ++j) {
+					sizes[j] = Integer.parseInt(split[j].trim());
+				}
+				break;
+			case "--game":
+				game = new File(value);
+				break;
+			case "--generate":
+				generate = Integer.parseInt(value);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + option);
+			}
+		}
+
+		// Never read or fill the user's thumbnail cache while benchmarking
+		ThumbnailCache.setDefault(null);
+
+		// Write a synthetic game to read, if asked for
+		if (generate > 0) {
+			game = generateGame(generate);
+		}
+
+		// Collect the suite
+		List<Benchmark> suite = new ArrayList<Benchmark>();
+		suite.addAll(ModelBenchmarks.benchmarks(sizes));
+		suite.addAll(ImageBenchmarks.benchmarks());
+		if (game.isDirectory()) {
+			suite.addAll(IOBenchmarks.benchmarks(game));
+		} else {
+			System.err.println("Skipping IO benchmarks, no game folder at " + game);
+		}
+		List<Benchmark> selected = new ArrayList<Benchmark>();
+		for (Benchmark benchmark : suite) {
+			if (filter == null || filter.matcher(benchmark.getName()).find()) {
+				selected.add(benchmark);
+			}
+		}
+
+		// Run, reporting progress on standard error so results stay parseable
+		List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+		for (Benchmark benchmark : selected) {
+			System.err.println("Running " + benchmark);
+			BenchmarkResult result = runner.run(benchmark);
+			System.err.println("  " + result);
+			results.add(result);
+		}
+
+		PrintStream output = System.out;
+		if (out != null) {
+			output = openOutput(out);
+		}
+		if (format.equals("csv")) {
+			writeCsv(output, results);
+		} else {
+			writeJson(output, results);
+		}
+		output.flush();
+		if (output != System.out) {
+			output.close();
+		}
+	}
+
+	/**
+	 * Writes a synthetic two-category game to a temporary folder. Images are copied
+	 * from one encoded image per category, so that large games are quick to write.
+	 * 
+	 * @param images the number of images in the game
+	 * @return the game folder
+	 * @throws IOException if the game could not be written
+	 */
+	private static File generateGame(int images) throws IOException {
+		File folder = new File(ImageBenchmarks.makeTempDirectory(), "synthetic-" + images);
+		LibraryGenerator generator = new LibraryGenerator();
+		generator.setImages(images);
+		generator.setUnique(false);
+		System.err.println("Writing synthetic game of " + images + " images to " + folder);
+		generator.generate(folder);
+		return folder;
+	}
+
+	/**
+	 * Opens the file results are written to
+	 * 
+	 * @param path the path of the file
+	 * @return a stream writing to the file
+	 * @throws FileNotFoundException if the file could not be opened
+	 */
+	private static PrintStream openOutput(String path) throws FileNotFoundException {
+		return new PrintStream(new File(path));
+	}
+
+	/**
+	 * Writes results as a JSON document, with the environment they were measured
+	 * in
+	 * 
+	 * @param output  the stream to write to
+	 * @param results the results to write
+	 */
+	static void writeJson(PrintStream output, List<BenchmarkResult> results) {
+		output.println("{");
+		output.println("  \"timestamp\": " + BenchmarkResult.quote(Instant.now().toString()) + ",");
+		output.println("  \"java\": " + BenchmarkResult.quote(System.getProperty("java.version")) + ",");
+		output.println("  \"vm\": " + BenchmarkResult.quote(System.getProperty("java.vm.name")) + ",");
+		output.println("  \"os\": " + BenchmarkResult.quote(
+				System.getProperty("os.name") + " " + System.getProperty("os.version") + " " + System.getProperty("os.arch"))
+				+ ",");
+		output.println("  \"cores\": " + Runtime.getRuntime().availableProcessors() + ",");
+		output.println("  \"results\": [");
+		for (int i = 0; i < results.size(); ++i) {
+			output.println("    " + results.get(i).toJson() + (i + 1 < results.size() ? "," : ""));
+		}
+		output.println("  ]");
+		output.println("}");
+	}
+
+	/**
+	 * Writes results as CSV, one line per result after a header line
+	 * 
+	 * @param output  the stream to write to
+	 * @param results the results to write
+	 */
+	static void writeCsv(PrintStream output, List<BenchmarkResult> results) {
+		output.println(BenchmarkResult.CSV_HEADER);
+		for (BenchmarkResult result : results) {
+			output.println(result.toCsv());
+		}
+	}
+
+}
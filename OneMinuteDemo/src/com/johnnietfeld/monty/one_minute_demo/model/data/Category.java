@@ -4,6 +4,10 @@ public class Category {
 
 	/** The name of this Category */
 	private String name;
+	/** The CategoryIndex this Category is interned in, or null if it is not */
+	private CategoryIndex index;
+	/** The ordinal of this Category in its CategoryIndex, or -1 if not interned */
+	private int ordinal = -1;
 
 	/**
 	 * Creates a new Category with the provided name. Requires that name be
@@ -16,6 +20,20 @@ public class Category {
 		setName(name);
 	}
 
+	/**
+	 * Creates a new Category interned in a CategoryIndex
+	 * 
+	 * @param name    the name of this Category
+	 * @param index   the CategoryIndex interning this Category
+	 * @param ordinal the ordinal of this Category in the index
+	 * @throws IllegalArgumentException if name is null or blank
+	 */
+	Category(String name, CategoryIndex index, int ordinal) {
+		setName(name);
+		this.index = index;
+		this.ordinal = ordinal;
+	}
+
 	/**
 	 * Sets this Category's name. Ensures it is not null or blank.
 	 * 
@@ -38,6 +56,24 @@ public class Category {
 		return this.name;
 	}
 
+	/**
+	 * Gets the CategoryIndex this Category is interned in
+	 * 
+	 * @return the index, or null if this Category is not interned
+	 */
+	public CategoryIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * Gets the ordinal of this Category in its CategoryIndex
+	 * 
+	 * @return the ordinal, or -1 if this Category is not interned
+	 */
+	public int getOrdinal() {
+		return ordinal;
+	}
+
 	/**
 	 * Generates a unique hashcode for this Category object by name.
 	 * 
@@ -65,6 +101,9 @@ public class Category {
 		if (getClass() != obj.getClass())
 			return false;
 		Category other = (Category) obj;
+		// Categories interned in the same index are only equal to themselves
+		if (index != null && index == other.index)
+			return false;
 		if (!name.equals(other.name))
 			return false;
 		return true;
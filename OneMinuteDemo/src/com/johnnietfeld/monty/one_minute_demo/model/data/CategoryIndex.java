@@ -0,0 +1,112 @@
+package com.johnnietfeld.monty.one_minute_demo.model.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Interns the Categories of one game. Each name is given a single Category
+ * instance, numbered with a dense ordinal in the order names are first seen, so
+ * that per-category state can be kept in arrays indexed by ordinal. Two
+ * Categories interned in the same CategoryIndex are the same category exactly
+ * when they are the same instance, so comparing them never compares names.
+ * 
+ * Not safe for concurrent use. A game's categories are interned by the thread
+ * that loads it, before the game is played.
+ * 
+ * @author Melody Griesen
+ *
+ */
+public final class CategoryIndex {
+
+	/** Interned Categories, by name */
+	private HashMap<String, Category> byName;
+	/** Interned Categories, by ordinal */
+	private ArrayList<Category> byOrdinal;
+
+	/**
+	 * Creates an empty CategoryIndex
+	 */
+	public CategoryIndex() {
+		byName = new HashMap<String, Category>();
+		byOrdinal = new ArrayList<Category>();
+	}
+
+	/**
+	 * Gets the Category with the given name, interning a new one with the next
+	 * ordinal if there is none yet.
+	 * 
+	 * @param name the name of the Category
+	 * @return the interned Category
+	 * @throws IllegalArgumentException if name is null or blank
+	 */
+	public Category intern(String name) {
+		Category category = byName.get(name);
+		if (category == null) {
+			category = new Category(name, this, byOrdinal.size());
+			byName.put(name, category);
+			byOrdinal.add(category);
+		}
+		return category;
+	}
+
+	/**
+	 * Gets the Category interned here that equals the given Category, interning
+	 * one if there is none yet.
+	 * 
+	 * @param category a Category, interned here, elsewhere or not at all
+	 * @return the interned Category with the same name
+	 */
+	public Category intern(Category category) {
+		if (category.getIndex() == this) {
+			return category;
+		}
+		return intern(category.getName());
+	}
+
+	/**
+	 * Gets the ordinal of the Category interned here that equals the given
+	 * Category. Categories interned here are looked up without comparing names.
+	 * 
+	 * @param category a Category, interned here, elsewhere or not at all
+	 * @return the ordinal, or -1 if no equal Category is interned here
+	 */
+	public int ordinalOf(Category category) {
+		if (category.getIndex() == this) {
+			return category.getOrdinal();
+		}
+		Category interned = byName.get(category.getName());
+		return interned == null ? -1 : interned.getOrdinal();
+	}
+
+	/**
+	 * Gets the Category with the given ordinal
+	 * 
+	 * @param ordinal the ordinal of the Category
+	 * @return the interned Category
+	 * @throws IndexOutOfBoundsException if no Category has that ordinal
+	 */
+	public Category get(int ordinal) {
+		return byOrdinal.get(ordinal);
+	}
+
+	/**
+	 * Gets how many Categories are interned here, which is one more than the
+	 * largest ordinal
+	 * 
+	 * @return the number of interned Categories
+	 */
+	public int size() {
+		return byOrdinal.size();
+	}
+
+	/**
+	 * Gets every interned Category, in order of ordinal
+	 * 
+	 * @return a new List of the interned Categories
+	 */
+	public List<Category> getCategories() {
+		return new ArrayList<Category>(byOrdinal);
+	}
+
+}
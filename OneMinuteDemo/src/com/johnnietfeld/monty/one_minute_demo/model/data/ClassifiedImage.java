@@ -1,7 +1,27 @@
 package com.johnnietfeld.monty.one_minute_demo.model.data;
 
+import java.awt.Dimension;
+import java.awt.Image;
+import java.awt.MediaTracker;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.event.IIOReadProgressListener;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 import javax.swing.ImageIcon;
 
+import com.johnnietfeld.monty.one_minute_demo.model.event.ImageDecodeEvent;
+import com.johnnietfeld.monty.one_minute_demo.model.io.ThumbnailCache;
+
 public class ClassifiedImage { // TODO: Implement. Closable.
 
 	/** The Category this ClassifiedImage is correctly classified under */
@@ -12,6 +32,16 @@ public class ClassifiedImage { // TODO: Implement. Closable.
 	private String name;
 	/** The image of this ClassifiedImage, loaded into memory */
 	private ImageIcon loadedImage;
+	/** The width of this image in pixels, or 0 if not yet known */
+	private int width = 0;
+	/** The height of this image in pixels, or 0 if not yet known */
+	private int height = 0;
+	/** Hash code of this image, or 0 if not yet computed */
+	private int hash = 0;
+	/** ImageTable this image was made from, told its dimensions once known, or null */
+	private ImageTable table;
+	/** Id of this image in its ImageTable */
+	private int id;
 
 	/**
 	 * Makes a new ClassifiedImage with the provided Image and Category. Ensures
@@ -89,17 +119,299 @@ public class ClassifiedImage { // TODO: Implement. Closable.
 
 	/**
 	 * Loads the image associated with this ClassifiedImage into memory, and saves
-	 * it to this ClassifiedImage.
+	 * it to this ClassifiedImage. The image is taken from the shared
+	 * DecodedImageCache if it is there, and added to it otherwise.
 	 * 
 	 * @throws IllegalArgumentException if the image at the location saved by this
 	 *                                  ClassifiedImage cannot be loaded.
 	 */
 	public void loadImage() {
+		ImageDecodeEvent event = new ImageDecodeEvent();
+		event.begin();
+		DecodedImageCache cache = DecodedImageCache.getShared();
+		Image cached = cache.get(image_location, null);
+		if (cached != null) {
+			loadedImage = new ImageIcon(cached);
+			event.finish(this, ImageDecodeEvent.SOURCE_MEMORY, null);
+			return;
+		}
 //		try {
 		loadedImage = new ImageIcon(image_location);
 //		} catch (IOException e) {
 //			throw new IllegalArgumentException("Image located at " + image_location + " could not be loaded.");
 //		}
+		if (loadedImage.getImageLoadStatus() == MediaTracker.COMPLETE) {
+			cache.put(image_location, null, loadedImage.getImage());
+		}
+		event.finish(this, ImageDecodeEvent.SOURCE_FILE, null);
+	}
+
+	/**
+	 * Loads the image associated with this ClassifiedImage into memory, scaled down
+	 * to fit within the target size, and saves it to this ClassifiedImage. Images
+	 * already smaller than the target size are not scaled.
+	 * 
+	 * Scaled images are kept in the default ThumbnailCache, so an image that has
+	 * been loaded at this size before, in this or an earlier session, is read from
+	 * the small cached copy instead of being decoded from the full-resolution file.
+	 * 
+	 * @param target the size the loaded image should fit within, or null to load
+	 *               the image at full size
+	 * @throws IllegalArgumentException if the image at the location saved by this
+	 *                                  ClassifiedImage cannot be loaded.
+	 */
+	public void loadImage(Dimension target) {
+		loadImage(target, null);
+	}
+
+	/**
+	 * Loads the image associated with this ClassifiedImage into memory, scaled down
+	 * to fit within the target size, decoding it from contents of the image file
+	 * that have already been read, as returned by readEncoded.
+	 * 
+	 * @param target  the size the loaded image should fit within, or null to load
+	 *                the image at full size
+	 * @param encoded the contents of the image file, or null to read the file
+	 * @throws IllegalArgumentException if the image cannot be loaded.
+	 */
+	public void loadImage(Dimension target, byte[] encoded) {
+		if (target == null || target.width <= 0 || target.height <= 0) {
+			loadImage();
+			return;
+		}
+
+		ImageDecodeEvent event = new ImageDecodeEvent();
+		event.begin();
+
+		// Use the decoded image if it is still in memory
+		DecodedImageCache decoded = DecodedImageCache.getShared();
+		Image cached = decoded.get(image_location, target);
+		if (cached != null) {
+			loadedImage = new ImageIcon(cached);
+			event.finish(this, ImageDecodeEvent.SOURCE_MEMORY, target);
+			return;
+		}
+
+		File source = new File(image_location);
+		ThumbnailCache cache = ThumbnailCache.getDefault();
+
+		// Use the cached copy on disk if there is one
+		BufferedImage image = cache == null ? null : cache.read(source, target);
+		String from = ImageDecodeEvent.SOURCE_THUMBNAIL;
+		if (image == null) {
+			from = ImageDecodeEvent.SOURCE_FILE;
+			// Otherwise decode the image at roughly the target size and scale it down
+			image = ImageScaler.scaleToFit(decodeImage(target, encoded), target);
+
+			// Save the scaled copy for next time
+			if (cache != null) {
+				cache.write(source, target, image, encoded);
+			}
+		}
+
+		decoded.put(image_location, target, image);
+		loadedImage = new ImageIcon(image);
+		event.finish(this, from, target);
+	}
+
+	/**
+	 * Decodes the image file associated with this ClassifiedImage at roughly the
+	 * target size. The image header is read first to find the full size of the
+	 * image, then only every n-th pixel of every n-th row is decoded, with n
+	 * chosen so that the decoded image is still at least as large as the image
+	 * would be when scaled to fit the target. A 4000 pixel wide photo shown 500
+	 * pixels wide is decoded with n = 8, holding 1/64th of the pixels in memory.
+	 * 
+	 * Interrupting the decoding thread aborts the decode at the reader's next
+	 * progress update, so that loads nobody needs anymore stop early.
+	 * 
+	 * @param target the size the image will be scaled to fit
+	 * @return the decoded image, no smaller than it will be displayed
+	 * @throws IllegalArgumentException if the image at the location saved by this
+	 *                                  ClassifiedImage cannot be decoded.
+	 * @throws CancellationException    if the decoding thread was interrupted
+	 */
+	public BufferedImage decodeImage(Dimension target) {
+		return decodeImage(target, null);
+	}
+
+	/**
+	 * Decodes the image at roughly the target size, as decodeImage(Dimension)
+	 * does, from contents of the image file that have already been read.
+	 * 
+	 * @param target  the size the image will be scaled to fit
+	 * @param encoded the contents of the image file, or null to read the file
+	 * @return the decoded image, no smaller than it will be displayed
+	 * @throws IllegalArgumentException if the image cannot be decoded.
+	 * @throws CancellationException    if the decoding thread was interrupted
+	 */
+	public BufferedImage decodeImage(Dimension target, byte[] encoded) {
+		try (ImageInputStream input = encoded == null ? ImageIO.createImageInputStream(new File(image_location))
+				: new MemoryCacheImageInputStream(new ByteArrayInputStream(encoded))) {
+			Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+			if (readers == null || !readers.hasNext()) {
+				throw new IllegalArgumentException("Image located at " + image_location + " could not be loaded.");
+			}
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(input, true, true);
+
+				// Read the full size of the image from its header
+				int width = reader.getWidth(0);
+				int height = reader.getHeight(0);
+				learnDimensions(width, height);
+
+				// Subsample by the largest whole factor that still covers the target size
+				ImageReadParam param = reader.getDefaultReadParam();
+				double ratio = Math.min(target.getWidth() / width, target.getHeight() / height);
+				int subsampling = ratio >= 1.0 ? 1 : (int) Math.floor(1.0 / ratio);
+				if (subsampling > 1) {
+					param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+				}
+
+				reader.addIIOReadProgressListener(new AbortOnInterrupt());
+				BufferedImage image = reader.read(0, param);
+				if (Thread.currentThread().isInterrupted()) {
+					throw new CancellationException("Loading of image at " + image_location + " was cancelled.");
+				}
+				return image;
+			} finally {
+				reader.dispose();
+			}
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Image located at " + image_location + " could not be loaded.");
+		}
+	}
+
+	/**
+	 * Reads the contents of the image file into memory, to be decoded later with
+	 * loadImage(Dimension, byte[]). Lets a thread that is cheap to block read the
+	 * file, and a thread from a pool bounded by the cores decode it. The contents
+	 * are also what the default ThumbnailCache hashes when it stores the scaled
+	 * image, so it does not read the file again.
+	 * 
+	 * @return the contents of the image file, or null if it could not be read
+	 */
+	public byte[] readEncoded() {
+		try {
+			return Files.readAllBytes(new File(image_location).toPath());
+		} catch (IOException e) {
+			// Decoding will read the file again and report the failure
+			return null;
+		}
+	}
+
+	/**
+	 * Simple getter for this Image's width in pixels
+	 * 
+	 * @return the width field, or 0 if the dimensions are not known
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * Simple getter for this Image's height in pixels
+	 * 
+	 * @return the height field, or 0 if the dimensions are not known
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+
+	/**
+	 * Tells whether this Image's pixel dimensions are known, either because they
+	 * were read from the image file or provided by a cached game manifest.
+	 * 
+	 * @return true if width and height are known, else false
+	 */
+	public boolean hasDimensions() {
+		return width > 0 && height > 0;
+	}
+
+	/**
+	 * Saves this Image's pixel dimensions, as previously read from the image file.
+	 * 
+	 * @param width  the width of the image in pixels
+	 * @param height the height of the image in pixels
+	 * @throws IllegalArgumentException if either dimension is negative
+	 */
+	public void setDimensions(int width, int height) {
+		if (width < 0 || height < 0) {
+			throw new IllegalArgumentException("Image dimensions cannot be negative");
+		}
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Reads this Image's pixel dimensions from the header of its image file,
+	 * without decoding any pixels, and saves them.
+	 * 
+	 * @return true if the dimensions were read, false if the file could not be
+	 *         read as an image
+	 */
+	public boolean readDimensions() {
+		Dimension size = readDimensions(new File(image_location));
+		if (size == null) {
+			return false;
+		}
+		learnDimensions(size.width, size.height);
+		return true;
+	}
+
+	/**
+	 * Saves this Image's pixel dimensions as read from its image file, and fills
+	 * them in the ImageTable it was made from, if any
+	 * 
+	 * @param width  the width of the image in pixels
+	 * @param height the height of the image in pixels
+	 */
+	private void learnDimensions(int width, int height) {
+		setDimensions(width, height);
+		if (table != null) {
+			table.fillDimensions(id, width, height);
+		}
+	}
+
+	/**
+	 * Records the ImageTable this image was made from, so that the table learns
+	 * its dimensions when it is first decoded
+	 * 
+	 * @param table the ImageTable
+	 * @param id    the id of this image in the table
+	 */
+	void setSource(ImageTable table, int id) {
+		this.table = table;
+		this.id = id;
+	}
+
+	/**
+	 * Reads the pixel dimensions of an image file from its header, without
+	 * decoding any pixels.
+	 * 
+	 * @param file the image file
+	 * @return the dimensions, or null if the file could not be read as an image
+	 */
+	public static Dimension readDimensions(File file) {
+		try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+			if (input == null) {
+				return null;
+			}
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+			if (!readers.hasNext()) {
+				return null;
+			}
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(input, true, true);
+				return new Dimension(reader.getWidth(0), reader.getHeight(0));
+			} finally {
+				reader.dispose();
+			}
+		} catch (IOException e) {
+			return null;
+		}
 	}
 
 	/**
@@ -113,14 +425,15 @@ public class ClassifiedImage { // TODO: Implement. Closable.
 
 	/**
 	 * Judges whether a certain categorization of an image is correct, based on the
-	 * stored category. Uses Category.equals() to compare.
+	 * stored category. Uses Category.equals() to compare, which only compares
+	 * names when the categories are not interned in the same CategoryIndex.
 	 * 
 	 * @param category the Category to score this ClassifiedImage under
 	 * @return true if the provided category matches this Image's category, else
 	 *         false
 	 */
 	public boolean scoreCategory(Category category) {
-		return category.equals(this.getCategory());
+		return category.equals(this.category);
 	}
 
 	@Override
@@ -144,8 +457,10 @@ public class ClassifiedImage { // TODO: Implement. Closable.
 	}
 
 	/**
-	 * Clears the internal loaded image from memory, making the BufferedImage
-	 * available for garbage collection.
+	 * Releases this ClassifiedImage's reference to its loaded image. The decoded
+	 * pixels stay in the shared DecodedImageCache, which frees them once they are
+	 * the least recently used images over its byte budget, so an image shown again
+	 * soon after does not need to be decoded again.
 	 */
 	public void flushLoadedImage() {
 		loadedImage = null;
@@ -160,13 +475,23 @@ public class ClassifiedImage { // TODO: Implement. Closable.
 		return loadedImage != null;
 	}
 
+	/**
+	 * Generates a hashcode from category, image location, and name. Computed once,
+	 * since none of those fields change.
+	 * 
+	 * @return the hashcode
+	 */
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + category.hashCode();
-		result = prime * result + image_location.hashCode();
-		result = prime * result + name.hashCode();
+		int result = hash;
+		if (result == 0) {
+			final int prime = 31;
+			result = 1;
+			result = prime * result + category.hashCode();
+			result = prime * result + image_location.hashCode();
+			result = prime * result + name.hashCode();
+			hash = result;
+		}
 		return result;
 	}
 
@@ -194,4 +519,51 @@ public class ClassifiedImage { // TODO: Implement. Closable.
 		return true;
 	}
 
+	/**
+	 * Aborts a read once the reading thread has been interrupted
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	private static class AbortOnInterrupt implements IIOReadProgressListener {
+		@Override
+		public void imageProgress(ImageReader source, float percentageDone) {
+			if (Thread.currentThread().isInterrupted()) {
+				source.abort();
+			}
+		}
+
+		@Override
+		public void sequenceStarted(ImageReader source, int minIndex) {
+		}
+
+		@Override
+		public void sequenceComplete(ImageReader source) {
+		}
+
+		@Override
+		public void imageStarted(ImageReader source, int imageIndex) {
+		}
+
+		@Override
+		public void imageComplete(ImageReader source) {
+		}
+
+		@Override
+		public void thumbnailStarted(ImageReader source, int imageIndex, int thumbnailIndex) {
+		}
+
+		@Override
+		public void thumbnailProgress(ImageReader source, float percentageDone) {
+		}
+
+		@Override
+		public void thumbnailComplete(ImageReader source) {
+		}
+
+		@Override
+		public void readAborted(ImageReader source) {
+		}
+	}
+
 }
@@ -0,0 +1,279 @@
+package com.johnnietfeld.monty.one_minute_demo.model.data;
+
+import java.awt.Dimension;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Cache of decoded images shared by every ClassifiedImage, keyed by image
+ * location and the size the image was loaded to fit. Holds at most a
+ * configurable number of bytes of decoded pixels, evicting the least recently
+ * used images first. When a game cycles through its images, pictures that are
+ * still in the cache are shown again without being decoded again.
+ * 
+ * @author Melody Griesen
+ *
+ */
+public class DecodedImageCache {
+
+	/** System property that can be set to choose the shared cache's byte budget */
+	public static final String BUDGET_PROPERTY = "omg.imageCacheBytes";
+	/** Default byte budget of the shared cache: 128 MB */
+	public static final long DEFAULT_BYTE_BUDGET = 128L * 1024 * 1024;
+
+	/** The cache shared by all ClassifiedImages */
+	private static final DecodedImageCache SHARED = new DecodedImageCache(
+			Long.getLong(BUDGET_PROPERTY, DEFAULT_BYTE_BUDGET));
+
+	/** Cached images in least to most recently used order */
+	private LinkedHashMap<Key, Entry> entries;
+	/** Maximum number of bytes of decoded pixels to hold */
+	private long byteBudget;
+	/** Number of bytes of decoded pixels currently held */
+	private long bytes;
+	/** Number of lookups that found a cached image */
+	private long hits;
+	/** Number of lookups that found no cached image */
+	private long misses;
+
+	/**
+	 * Creates an empty DecodedImageCache with the given byte budget.
+	 * 
+	 * @param byteBudget the maximum number of bytes of decoded pixels to hold
+	 * @throws IllegalArgumentException if byteBudget is negative
+	 */
+	public DecodedImageCache(long byteBudget) {
+		entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+		setByteBudget(byteBudget);
+	}
+
+	/**
+	 * Retrieves the cache shared by all ClassifiedImages.
+	 * 
+	 * @return the shared DecodedImageCache
+	 */
+	public static DecodedImageCache getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * Sets the maximum number of bytes of decoded pixels this cache may hold,
+	 * evicting images if it now holds too many. A budget of 0 disables caching.
+	 * 
+	 * @param byteBudget the maximum number of bytes to hold
+	 * @throws IllegalArgumentException if byteBudget is negative
+	 */
+	public synchronized void setByteBudget(long byteBudget) {
+		if (byteBudget < 0) {
+			throw new IllegalArgumentException("Byte budget cannot be negative");
+		}
+		this.byteBudget = byteBudget;
+		evict();
+	}
+
+	/**
+	 * Simple getter for this cache's byte budget
+	 * 
+	 * @return the byteBudget field
+	 */
+	public synchronized long getByteBudget() {
+		return byteBudget;
+	}
+
+	/**
+	 * Gets how many bytes of decoded pixels this cache currently holds
+	 * 
+	 * @return the number of bytes held
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Gets how many images this cache currently holds
+	 * 
+	 * @return the number of cached images
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets how many lookups found a cached image
+	 * 
+	 * @return the number of cache hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets how many lookups found no cached image
+	 * 
+	 * @return the number of cache misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Looks up a decoded image, marking it as the most recently used.
+	 * 
+	 * @param location the location of the image file
+	 * @param target   the size the image was loaded to fit, or null for full size
+	 * @return the cached image, or null if it is not cached
+	 */
+	public synchronized Image get(String location, Dimension target) {
+		Entry entry = entries.get(new Key(location, target));
+		if (entry == null) {
+			++misses;
+			return null;
+		}
+		++hits;
+		return entry.image;
+	}
+
+	/**
+	 * Adds a decoded image to the cache, then evicts the least recently used
+	 * images until the cache is within its byte budget. Images larger than the
+	 * whole budget are not cached.
+	 * 
+	 * @param location the location of the image file
+	 * @param target   the size the image was loaded to fit, or null for full size
+	 * @param image    the decoded image
+	 */
+	public synchronized void put(String location, Dimension target, Image image) {
+		long size = byteSize(image);
+		if (size > byteBudget) {
+			return;
+		}
+		Entry previous = entries.put(new Key(location, target), new Entry(image, size));
+		if (previous != null) {
+			bytes -= previous.bytes;
+		}
+		bytes += size;
+		evict();
+	}
+
+	/**
+	 * Removes every image from the cache.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Evicts least recently used images until the cache is within its byte budget.
+	 */
+	private void evict() {
+		Iterator<Entry> eldest = entries.values().iterator();
+		while (bytes > byteBudget && eldest.hasNext()) {
+			bytes -= eldest.next().bytes;
+			eldest.remove();
+		}
+	}
+
+	/**
+	 * Returns a summary of this cache's usage
+	 * 
+	 * @return the number of images and bytes held, and the hit and miss counts
+	 */
+	@Override
+	public synchronized String toString() {
+		return "DecodedImageCache[images=" + entries.size() + ", bytes=" + bytes + "/" + byteBudget + ", hits=" + hits
+				+ ", misses=" + misses + "]";
+	}
+
+	/**
+	 * Estimates the number of bytes of decoded pixels an image holds. Exact for
+	 * BufferedImages, and assumes 4 bytes per pixel otherwise.
+	 * 
+	 * @param image the image to measure
+	 * @return the number of bytes held by the image's pixels
+	 */
+	public static long byteSize(Image image) {
+		if (image instanceof BufferedImage) {
+			DataBuffer data = ((BufferedImage) image).getRaster().getDataBuffer();
+			return (long) data.getSize() * data.getNumBanks() * DataBuffer.getDataTypeSize(data.getDataType()) / 8;
+		}
+		return 4L * Math.max(0, image.getWidth(null)) * Math.max(0, image.getHeight(null));
+	}
+
+	/**
+	 * Cache key made from an image location and target size.
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	private static final class Key {
+
+		/** The location of the image file */
+		private final String location;
+		/** Target width, or 0 for full size */
+		private final int width;
+		/** Target height, or 0 for full size */
+		private final int height;
+
+		/**
+		 * Creates a Key for the given image location and target size
+		 * 
+		 * @param location the location of the image file
+		 * @param target   the size the image was loaded to fit, or null for full size
+		 */
+		private Key(String location, Dimension target) {
+			this.location = location;
+			this.width = target == null ? 0 : target.width;
+			this.height = target == null ? 0 : target.height;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + location.hashCode();
+			result = prime * result + width;
+			result = prime * result + height;
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return width == other.width && height == other.height && location.equals(other.location);
+		}
+	}
+
+	/**
+	 * Cached image with its size in bytes.
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	private static final class Entry {
+
+		/** The decoded image */
+		private final Image image;
+		/** Number of bytes held by the image's pixels */
+		private final long bytes;
+
+		/**
+		 * Creates an Entry for the given image
+		 * 
+		 * @param image the decoded image
+		 * @param bytes number of bytes held by the image's pixels
+		 */
+		private Entry(Image image, long bytes) {
+			this.image = image;
+			this.bytes = bytes;
+		}
+	}
+
+}
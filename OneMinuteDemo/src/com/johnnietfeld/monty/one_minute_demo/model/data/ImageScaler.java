@@ -0,0 +1,136 @@
+package com.johnnietfeld.monty.one_minute_demo.model.data;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Scales images into display-ready BufferedImages. Large reductions are done in
+ * several bilinear steps that each at most halve the image, so that every
+ * source pixel contributes to the result instead of being skipped. The result
+ * is a plain INT_RGB or INT_ARGB image that Swing can paint without filtering
+ * it again.
+ * 
+ * @author Melody Griesen
+ *
+ */
+public final class ImageScaler {
+
+	/**
+	 * ImageScaler only has static methods
+	 */
+	private ImageScaler() {
+	}
+
+	/**
+	 * Calculates the size of an image scaled to fill a fraction of the bounds,
+	 * keeping its aspect ratio. Images smaller than that are scaled up.
+	 * 
+	 * @param width    the width of the image
+	 * @param height   the height of the image
+	 * @param bounds   the size to fit within
+	 * @param fraction the fraction of the bounds' width or height the image may
+	 *                 take up
+	 * @return the scaled size, at least 1x1
+	 * @throws IllegalArgumentException if the image or bounds are empty
+	 */
+	public static Dimension fitSize(int width, int height, Dimension bounds, double fraction) {
+		if (width <= 0 || height <= 0 || bounds.width <= 0 || bounds.height <= 0) {
+			throw new IllegalArgumentException("Cannot fit an empty image or bounds");
+		}
+		double ratio = Math.min(bounds.getWidth() / width, bounds.getHeight() / height) * fraction;
+		return new Dimension(Math.max(1, (int) Math.round(width * ratio)),
+				Math.max(1, (int) Math.round(height * ratio)));
+	}
+
+	/**
+	 * Scales an image down to fit within the target size, keeping its aspect
+	 * ratio. Images that already fit are returned unchanged.
+	 * 
+	 * @param image  the image to scale
+	 * @param target the size to fit within
+	 * @return the scaled image
+	 */
+	public static BufferedImage scaleToFit(BufferedImage image, Dimension target) {
+		double ratio = Math.min(target.getWidth() / image.getWidth(), target.getHeight() / image.getHeight());
+		if (ratio >= 1.0) {
+			return image;
+		}
+		int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+		int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+		return scale(image, width, height);
+	}
+
+	/**
+	 * Scales an image to exactly the given size. Reductions to less than half the
+	 * size are done in several halving steps, and enlargements in one step.
+	 * 
+	 * @param image  the image to scale, which must be fully loaded
+	 * @param width  the width to scale to
+	 * @param height the height to scale to
+	 * @return a new display-ready image of the given size, or the image itself if
+	 *         it already is one
+	 * @throws IllegalArgumentException if the size is empty, or the image is not
+	 *                                  loaded
+	 */
+	public static BufferedImage scale(Image image, int width, int height) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Cannot scale to an empty size");
+		}
+		int currentWidth = image.getWidth(null);
+		int currentHeight = image.getHeight(null);
+		if (currentWidth <= 0 || currentHeight <= 0) {
+			throw new IllegalArgumentException("Cannot scale an image that is not loaded");
+		}
+		boolean alpha = !(image instanceof BufferedImage) || ((BufferedImage) image).getColorModel().hasAlpha();
+		int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+		// Nothing to do if the image already is display-ready at the right size
+		if (currentWidth == width && currentHeight == height && image instanceof BufferedImage
+				&& ((BufferedImage) image).getType() == type) {
+			return (BufferedImage) image;
+		}
+
+		// Step towards the target size, halving at most each time
+		Image current = image;
+		do {
+			currentWidth = nextStep(currentWidth, width);
+			currentHeight = nextStep(currentHeight, height);
+			current = step(current, currentWidth, currentHeight, type);
+		} while (currentWidth != width || currentHeight != height);
+		return (BufferedImage) current;
+	}
+
+	/**
+	 * Calculates the next size to scale to when stepping towards the target size
+	 * 
+	 * @param current the current size
+	 * @param target  the target size
+	 * @return half the current size, or the target size if that is closer
+	 */
+	private static int nextStep(int current, int target) {
+		return current / 2 >= target ? current / 2 : target;
+	}
+
+	/**
+	 * Draws an image into a new image of the given size with bilinear filtering
+	 * 
+	 * @param image  the image to draw
+	 * @param width  the width of the new image
+	 * @param height the height of the new image
+	 * @param type   the BufferedImage type of the new image
+	 * @return the new image
+	 */
+	private static BufferedImage step(Image image, int width, int height, int type) {
+		BufferedImage scaled = new BufferedImage(width, height, type);
+		Graphics2D g = scaled.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		return scaled;
+	}
+
+}
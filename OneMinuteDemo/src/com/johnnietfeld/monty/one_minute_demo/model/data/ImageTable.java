@@ -0,0 +1,400 @@
+package com.johnnietfeld.monty.one_minute_demo.model.data;
+
+import java.io.File;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every image of one game, kept in columns of primitive arrays instead of one
+ * ClassifiedImage object per file, so that a game of a million images takes
+ * megabytes rather than hundreds of megabytes. Each image is identified by an
+ * int id, from 0 to size() - 1, in the order it was added.
+ * 
+ * An image's location is split into a directory prefix, interned once for all
+ * images in the same folder, and a file name suffix, stored as UTF-8 bytes in
+ * one shared array. Category ordinals, pixel dimensions and file sizes are
+ * kept in parallel arrays. A ClassifiedImage is only made when an image is
+ * dealt, by get(id), and get(id) returns that same instance for as long as
+ * anything still holds it, so that its loaded image and dimensions are kept.
+ * Once nothing does, the next get(id) makes a new one. Dimensions may be left
+ * unknown when images are added, so that no image file has to be opened to
+ * fill a table; an image made by get(id) fills them in when it is first
+ * decoded.
+ * 
+ * A table made from existing ClassifiedImages keeps them, and get(id) returns
+ * the same instances.
+ * 
+ * Not safe for concurrent use while images are being added. Once filled, it
+ * may be read by any number of threads.
+ * 
+ * @author Melody Griesen
+ *
+ */
+public final class ImageTable {
+
+	/** Initial capacity of the image arrays */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** Index the Categories of the images are interned in */
+	private CategoryIndex categories;
+	/** Interned directory prefixes, each ending in a separator */
+	private ArrayList<String> prefixes;
+	/** Ids of the interned directory prefixes, by prefix */
+	private HashMap<String, Integer> prefixIds;
+
+	/** Number of images in this table */
+	private int size;
+	/** Directory prefix id of each image */
+	private int[] prefixOf;
+	/** File names of all images, as UTF-8 bytes, one after another */
+	private byte[] names;
+	/** End of each image's file name in names, the start being the previous end */
+	private int[] nameEnds;
+	/** Category ordinal of each image */
+	private int[] categoryOf;
+	/** Pixel width of each image, 0 until known */
+	private int[] widths;
+	/** Pixel height of each image, 0 until known */
+	private int[] heights;
+	/** File size of each image in bytes, 0 if unknown */
+	private long[] lengths;
+	/** The ClassifiedImages this table was made from, or null if none */
+	private ClassifiedImage[] sources;
+	/** ClassifiedImages made by get(id) that may still be in use, by id */
+	private ConcurrentHashMap<Integer, MadeImage> made = new ConcurrentHashMap<Integer, MadeImage>();
+	/** References to made ClassifiedImages that are no longer in use */
+	private ReferenceQueue<ClassifiedImage> unused = new ReferenceQueue<ClassifiedImage>();
+
+	/**
+	 * Creates an empty ImageTable
+	 * 
+	 * @param categories the index the images' Categories are interned in
+	 * @throws IllegalArgumentException if categories is null
+	 */
+	public ImageTable(CategoryIndex categories) {
+		if (categories == null) {
+			throw new IllegalArgumentException("ImageTable requires a CategoryIndex");
+		}
+		this.categories = categories;
+		prefixes = new ArrayList<String>();
+		prefixIds = new HashMap<String, Integer>();
+		prefixOf = new int[INITIAL_CAPACITY];
+		names = new byte[INITIAL_CAPACITY * 16];
+		nameEnds = new int[INITIAL_CAPACITY];
+		categoryOf = new int[INITIAL_CAPACITY];
+		widths = new int[INITIAL_CAPACITY];
+		heights = new int[INITIAL_CAPACITY];
+		lengths = new long[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Creates an ImageTable of existing ClassifiedImages, in list order. get(id)
+	 * returns the same instances. If every image's Category is interned in the
+	 * same index, the table shares that index; otherwise the Categories are
+	 * interned in a new index, so that an index another game may be reading is
+	 * never changed. This will not affect the provided List.
+	 * 
+	 * @param images the ClassifiedImages
+	 * @return the ImageTable
+	 * @throws NullPointerException if images is null
+	 */
+	public static ImageTable of(List<ClassifiedImage> images) {
+		// Share the images' index only if there is nothing to intern into it
+		CategoryIndex index = images.isEmpty() ? null : images.get(0).getCategory().getIndex();
+		for (ClassifiedImage image : images) {
+			if (image.getCategory().getIndex() != index) {
+				index = null;
+				break;
+			}
+		}
+		ImageTable table = new ImageTable(index == null ? new CategoryIndex() : index);
+		table.sources = new ClassifiedImage[Math.max(images.size(), INITIAL_CAPACITY)];
+		for (ClassifiedImage image : images) {
+			// Split the location after its last separator
+			String location = image.getImageLocation();
+			int cut = Math.max(location.lastIndexOf('/'), location.lastIndexOf(File.separatorChar)) + 1;
+			int id = table.add(location.substring(0, cut), location.substring(cut), image.getCategory(),
+					image.getWidth(), image.getHeight(), 0);
+			table.sources[id] = image;
+		}
+		return table;
+	}
+
+	/**
+	 * Adds an image to this table
+	 * 
+	 * @param directory the directory prefix of the image's location, ending in a
+	 *                  separator
+	 * @param name      the file name of the image
+	 * @param category  the Category of the image, interned into this table's index
+	 * @param width     the width of the image in pixels, 0 if unknown
+	 * @param height    the height of the image in pixels, 0 if unknown
+	 * @param length    the size of the image file in bytes, 0 if unknown
+	 * @return the id of the added image
+	 * @throws IllegalArgumentException if name is null or blank
+	 */
+	public int add(String directory, String name, Category category, int width, int height, long length) {
+		if (name == null || name.isBlank()) {
+			throw new IllegalArgumentException("Image name cannot be null or blank");
+		}
+		int id = size;
+		ensureCapacity(id + 1);
+
+		// Intern the directory prefix
+		Integer prefix = prefixIds.get(directory);
+		if (prefix == null) {
+			prefix = prefixes.size();
+			prefixes.add(directory);
+			prefixIds.put(directory, prefix);
+		}
+		prefixOf[id] = prefix;
+
+		// Append the file name to the shared name bytes
+		byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+		int start = nameStart(id);
+		if (start + encoded.length > names.length) {
+			names = Arrays.copyOf(names, Math.max(start + encoded.length, names.length * 2));
+		}
+		System.arraycopy(encoded, 0, names, start, encoded.length);
+		nameEnds[id] = start + encoded.length;
+
+		categoryOf[id] = categories.intern(category).getOrdinal();
+		widths[id] = width;
+		heights[id] = height;
+		lengths[id] = length;
+		++size;
+		return id;
+	}
+
+	/**
+	 * Grows the image arrays to hold at least the given number of images.
+	 * 
+	 * @param capacity the number of images to make room for
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity <= prefixOf.length) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, prefixOf.length * 2);
+		prefixOf = Arrays.copyOf(prefixOf, newCapacity);
+		nameEnds = Arrays.copyOf(nameEnds, newCapacity);
+		categoryOf = Arrays.copyOf(categoryOf, newCapacity);
+		widths = Arrays.copyOf(widths, newCapacity);
+		heights = Arrays.copyOf(heights, newCapacity);
+		lengths = Arrays.copyOf(lengths, newCapacity);
+		if (sources != null) {
+			sources = Arrays.copyOf(sources, newCapacity);
+		}
+	}
+
+	/**
+	 * Gets where an image's file name starts in the shared name bytes
+	 * 
+	 * @param id the id of the image
+	 * @return the offset of the name
+	 */
+	private int nameStart(int id) {
+		return id == 0 ? 0 : nameEnds[id - 1];
+	}
+
+	/**
+	 * Gets how many images are in this table
+	 * 
+	 * @return the number of images
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the index the Categories of the images are interned in
+	 * 
+	 * @return the CategoryIndex
+	 */
+	public CategoryIndex getCategoryIndex() {
+		return categories;
+	}
+
+	/**
+	 * Gets an image as a ClassifiedImage. A table made from ClassifiedImages
+	 * returns the instance it was made from. Otherwise the ClassifiedImage made
+	 * for the id is returned while it is still in use, and a new one is made,
+	 * with whatever dimensions are known, once it is not.
+	 * 
+	 * @param id the id of the image
+	 * @return the ClassifiedImage
+	 * @throws IndexOutOfBoundsException if there is no image with that id
+	 */
+	public ClassifiedImage get(int id) {
+		checkId(id);
+		if (sources != null) {
+			return sources[id];
+		}
+		// Forget the images nothing holds any more
+		Reference<? extends ClassifiedImage> cleared;
+		while ((cleared = unused.poll()) != null) {
+			made.remove(((MadeImage) cleared).id, cleared);
+		}
+
+		// Reuse the image made for this id if it is still in use
+		MadeImage reference = made.get(id);
+		ClassifiedImage image = reference == null ? null : reference.get();
+		if (image != null) {
+			return image;
+		}
+		ClassifiedImage fresh = new ClassifiedImage(getLocation(id), getCategory(id), getName(id));
+		fresh.setDimensions(widths[id], heights[id]);
+		fresh.setSource(this, id);
+
+		// Another thread may have made one meanwhile, in which case use theirs
+		reference = made.compute(id, (key, old) -> old != null && old.get() != null ? old
+				: new MadeImage(fresh, key, unused));
+		image = reference.get();
+		return image == null ? fresh : image;
+	}
+
+	/**
+	 * Fills in the dimensions of an image that were unknown, once it has been
+	 * decoded. May be called by any thread while the table is read: every thread
+	 * writes the same values, and a reader that misses them sees the dimensions as
+	 * still unknown.
+	 * 
+	 * @param id     the id of the image
+	 * @param width  the width of the image in pixels
+	 * @param height the height of the image in pixels
+	 */
+	void fillDimensions(int id, int width, int height) {
+		if (widths[id] == 0 || heights[id] == 0) {
+			widths[id] = width;
+			heights[id] = height;
+		}
+	}
+
+	/**
+	 * Gets the file name of an image
+	 * 
+	 * @param id the id of the image
+	 * @return the file name
+	 * @throws IndexOutOfBoundsException if there is no image with that id
+	 */
+	public String getName(int id) {
+		checkId(id);
+		int start = nameStart(id);
+		return new String(names, start, nameEnds[id] - start, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Gets the location of an image's file, its directory prefix followed by its
+	 * file name
+	 * 
+	 * @param id the id of the image
+	 * @return the location
+	 * @throws IndexOutOfBoundsException if there is no image with that id
+	 */
+	public String getLocation(int id) {
+		return prefixes.get(prefixOf[id]) + getName(id);
+	}
+
+	/**
+	 * Gets the interned Category of an image
+	 * 
+	 * @param id the id of the image
+	 * @return the Category
+	 * @throws IndexOutOfBoundsException if there is no image with that id
+	 */
+	public Category getCategory(int id) {
+		return categories.get(getCategoryOrdinal(id));
+	}
+
+	/**
+	 * Gets the ordinal of an image's Category in this table's index
+	 * 
+	 * @param id the id of the image
+	 * @return the Category ordinal
+	 * @throws IndexOutOfBoundsException if there is no image with that id
+	 */
+	public int getCategoryOrdinal(int id) {
+		checkId(id);
+		return categoryOf[id];
+	}
+
+	/**
+	 * Gets the width of an image
+	 * 
+	 * @param id the id of the image
+	 * @return the width in pixels, 0 if unknown
+	 * @throws IndexOutOfBoundsException if there is no image with that id
+	 */
+	public int getWidth(int id) {
+		checkId(id);
+		return widths[id];
+	}
+
+	/**
+	 * Gets the height of an image
+	 * 
+	 * @param id the id of the image
+	 * @return the height in pixels, 0 if unknown
+	 * @throws IndexOutOfBoundsException if there is no image with that id
+	 */
+	public int getHeight(int id) {
+		checkId(id);
+		return heights[id];
+	}
+
+	/**
+	 * Gets the file size of an image
+	 * 
+	 * @param id the id of the image
+	 * @return the size in bytes, 0 if unknown
+	 * @throws IndexOutOfBoundsException if there is no image with that id
+	 */
+	public long getLength(int id) {
+		checkId(id);
+		return lengths[id];
+	}
+
+	/**
+	 * Checks that an image id is in this table
+	 * 
+	 * @param id the id to check
+	 * @throws IndexOutOfBoundsException if there is no image with that id
+	 */
+	private void checkId(int id) {
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("No image with id " + id + " in a table of " + size);
+		}
+	}
+
+	/**
+	 * Reference to a ClassifiedImage made by get(id), which does not keep it in
+	 * memory once nothing else holds it
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	private static final class MadeImage extends WeakReference<ClassifiedImage> {
+		/** The id of the image */
+		private final int id;
+
+		/**
+		 * Creates a reference to a made image
+		 * 
+		 * @param image the image
+		 * @param id    the id of the image
+		 * @param queue the queue to put the reference in once it is cleared
+		 */
+		private MadeImage(ClassifiedImage image, int id, ReferenceQueue<ClassifiedImage> queue) {
+			super(image, queue);
+			this.id = id;
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.johnnietfeld.monty.one_minute_demo.model.event;
+
+import java.io.File;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for reading the images of one category folder while a
+ * game folder is read.
+ * 
+ * @author Melody Griesen
+ *
+ */
+@Name("com.johnnietfeld.monty.one_minute_demo.CategoryRead")
+@Label("Category Read")
+@Description("Reading the image files of one category folder")
+@Category({ "One Minute Demo", "Loading" })
+@StackTrace(false)
+public class CategoryReadEvent extends jdk.jfr.Event {
+
+	/** Name of the category */
+	@Label("Category")
+	String category;
+	/** Path of the category folder */
+	@Label("Folder")
+	String folder;
+	/** Number of images read */
+	@Label("Images")
+	int images;
+	/** Total size of the image files read */
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+
+	/**
+	 * Ends the event and commits it, if it is enabled. The file sizes are only
+	 * added up when the event is committed.
+	 * 
+	 * @param folder the category folder
+	 * @param files  the image files read
+	 */
+	public void finish(File folder, File[] files) {
+		end();
+		if (shouldCommit()) {
+			this.category = folder.getName();
+			this.folder = folder.getAbsolutePath();
+			this.images = files.length;
+			for (File file : files) {
+				this.bytes += file.length();
+			}
+			commit();
+		}
+	}
+
+}
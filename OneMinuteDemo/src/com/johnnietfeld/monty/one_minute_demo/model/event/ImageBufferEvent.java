@@ -0,0 +1,63 @@
+package com.johnnietfeld.monty.one_minute_demo.model.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for an image going into or out of an ImageBuffer. A
+ * load spans drawing, decoding and scaling an image on a loader thread, and a
+ * take spans waiting for the next image to show.
+ * 
+ * @author Melody Griesen
+ *
+ */
+@Name("com.johnnietfeld.monty.one_minute_demo.ImageBuffer")
+@Label("Image Buffer")
+@Description("Loading an image into the buffer, or taking one out to show")
+@Category({ "One Minute Demo", "Loading" })
+@StackTrace(false)
+public class ImageBufferEvent extends jdk.jfr.Event {
+
+	/** An image was loaded into the buffer */
+	public static final String ACTION_LOAD = "load";
+	/** An image could not be loaded and was skipped */
+	public static final String ACTION_SKIP = "skip";
+	/** An image was taken out of the buffer */
+	public static final String ACTION_TAKE = "take";
+
+	/** What happened */
+	@Label("Action")
+	String action;
+	/** Name of the image, or null if there was none */
+	@Label("Image")
+	String image;
+	/** Number of images in the buffer afterwards */
+	@Label("Queued")
+	int queued;
+	/** Whether the buffer was empty when an image was taken */
+	@Label("Dry")
+	boolean dry;
+
+	/**
+	 * Ends the event and commits it, if it is enabled
+	 * 
+	 * @param action what happened
+	 * @param image  the name of the image, or null if there was none
+	 * @param queued the number of images in the buffer afterwards
+	 * @param dry    whether the buffer was empty when an image was taken
+	 */
+	public void finish(String action, String image, int queued, boolean dry) {
+		end();
+		if (shouldCommit()) {
+			this.action = action;
+			this.image = image;
+			this.queued = queued;
+			this.dry = dry;
+			commit();
+		}
+	}
+
+}
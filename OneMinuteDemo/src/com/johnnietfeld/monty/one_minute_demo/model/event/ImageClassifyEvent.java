@@ -0,0 +1,60 @@
+package com.johnnietfeld.monty.one_minute_demo.model.event;
+
+import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for the player classifying an image into a category.
+ * 
+ * @author Melody Griesen
+ *
+ */
+@Name("com.johnnietfeld.monty.one_minute_demo.ImageClassify")
+@Label("Image Classify")
+@Description("Scoring the category the player placed an image in")
+@Category({ "One Minute Demo", "Game" })
+@StackTrace(false)
+public class ImageClassifyEvent extends jdk.jfr.Event {
+
+	/** Name of the image */
+	@Label("Image")
+	String image;
+	/** Category the image belongs to */
+	@Label("Category")
+	String category;
+	/** Category the player placed the image in */
+	@Label("Placement")
+	String placement;
+	/** Whether the placement was correct */
+	@Label("Correct")
+	boolean correct;
+	/** Score after the placement */
+	@Label("Score")
+	int score;
+
+	/**
+	 * Ends the event and commits it, if it is enabled
+	 * 
+	 * @param image     the image that was classified
+	 * @param placement the name of the category the player placed it in
+	 * @param correct   whether the placement was correct
+	 * @param score     the score after the placement
+	 */
+	public void finish(ClassifiedImage image, String placement, boolean correct, int score) {
+		end();
+		if (shouldCommit()) {
+			this.image = image.getName();
+			this.category = image.getCategory().getName();
+			this.placement = placement;
+			this.correct = correct;
+			this.score = score;
+			commit();
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.johnnietfeld.monty.one_minute_demo.model.event;
+
+import java.awt.Dimension;
+import java.io.File;
+
+import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for loading the image of a ClassifiedImage into
+ * memory, whether it was decoded from its file or found in a cache.
+ * 
+ * @author Melody Griesen
+ *
+ */
+@Name("com.johnnietfeld.monty.one_minute_demo.ImageDecode")
+@Label("Image Decode")
+@Description("Loading an image into memory, from its file or a cache")
+@Category({ "One Minute Demo", "Images" })
+@StackTrace(false)
+public class ImageDecodeEvent extends jdk.jfr.Event {
+
+	/** Image was found in the decoded image cache */
+	public static final String SOURCE_MEMORY = "memory";
+	/** Image was read from the thumbnail cache */
+	public static final String SOURCE_THUMBNAIL = "thumbnail";
+	/** Image was decoded from its file */
+	public static final String SOURCE_FILE = "file";
+
+	/** Name of the image */
+	@Label("Image")
+	String image;
+	/** Where the image was loaded from */
+	@Label("Source")
+	String source;
+	/** Size of the image file */
+	@Label("File Size")
+	@DataAmount
+	long fileSize;
+	/** Full width of the image, or 0 if unknown */
+	@Label("Width")
+	int width;
+	/** Full height of the image, or 0 if unknown */
+	@Label("Height")
+	int height;
+	/** Width the image was loaded to fit, or 0 for full size */
+	@Label("Target Width")
+	int targetWidth;
+	/** Height the image was loaded to fit, or 0 for full size */
+	@Label("Target Height")
+	int targetHeight;
+	/** Width of the loaded image, or 0 if it failed to load */
+	@Label("Loaded Width")
+	int loadedWidth;
+	/** Height of the loaded image, or 0 if it failed to load */
+	@Label("Loaded Height")
+	int loadedHeight;
+
+	/**
+	 * Ends the event and commits it, if it is enabled
+	 * 
+	 * @param image  the ClassifiedImage that was loaded
+	 * @param source where the image was loaded from
+	 * @param target the size the image was loaded to fit, or null for full size
+	 */
+	public void finish(ClassifiedImage image, String source, Dimension target) {
+		end();
+		if (shouldCommit()) {
+			this.image = image.getName();
+			this.source = source;
+			this.fileSize = new File(image.getImageLocation()).length();
+			this.width = image.getWidth();
+			this.height = image.getHeight();
+			if (target != null) {
+				this.targetWidth = target.width;
+				this.targetHeight = target.height;
+			}
+			if (image.isLoaded()) {
+				this.loadedWidth = image.getLoadedImage().getIconWidth();
+				this.loadedHeight = image.getLoadedImage().getIconHeight();
+			}
+			commit();
+		}
+	}
+
+}
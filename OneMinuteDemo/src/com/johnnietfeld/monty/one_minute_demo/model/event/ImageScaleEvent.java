@@ -0,0 +1,60 @@
+package com.johnnietfeld.monty.one_minute_demo.model.event;
+
+import java.awt.Dimension;
+import java.awt.Image;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for scaling a decoded image to the size it is shown at.
+ * 
+ * @author Melody Griesen
+ *
+ */
+@Name("com.johnnietfeld.monty.one_minute_demo.ImageScale")
+@Label("Image Scale")
+@Description("Scaling a decoded image to its display size")
+@Category({ "One Minute Demo", "Images" })
+@StackTrace(false)
+public class ImageScaleEvent extends jdk.jfr.Event {
+
+	/** Name of the image */
+	@Label("Image")
+	String image;
+	/** Width of the decoded image */
+	@Label("Source Width")
+	int sourceWidth;
+	/** Height of the decoded image */
+	@Label("Source Height")
+	int sourceHeight;
+	/** Width of the scaled image */
+	@Label("Scaled Width")
+	int scaledWidth;
+	/** Height of the scaled image */
+	@Label("Scaled Height")
+	int scaledHeight;
+
+	/**
+	 * Ends the event and commits it, if it is enabled
+	 * 
+	 * @param image  the name of the image
+	 * @param source the decoded image that was scaled
+	 * @param size   the size it was scaled to
+	 */
+	public void finish(String image, Image source, Dimension size) {
+		end();
+		if (shouldCommit()) {
+			this.image = image;
+			this.sourceWidth = source.getWidth(null);
+			this.sourceHeight = source.getHeight(null);
+			this.scaledWidth = size.width;
+			this.scaledHeight = size.height;
+			commit();
+		}
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.johnnietfeld.monty.one_minute_demo.model.io;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.johnnietfeld.monty.one_minute_demo.model.manager.Game;
+
+/**
+ * Holds the outcome of loading a folder of Games: every Game that was loaded
+ * successfully, and a Failure for every game folder that could not be loaded.
+ * Both lists are in the same order as the game folders were sorted by name.
+ * 
+ * @author Melody Griesen
+ *
+ */
+public class GameLoadResult {
+
+	/** Games that were loaded successfully */
+	private ArrayList<Game> games;
+	/** Game folders that could not be loaded */
+	private ArrayList<Failure> failures;
+
+	/**
+	 * Creates an empty GameLoadResult.
+	 */
+	GameLoadResult() {
+		games = new ArrayList<Game>();
+		failures = new ArrayList<Failure>();
+	}
+
+	/**
+	 * Records a successfully loaded Game.
+	 * 
+	 * @param game the Game that was loaded
+	 */
+	void addGame(Game game) {
+		games.add(game);
+	}
+
+	/**
+	 * Records a game folder that could not be loaded.
+	 * 
+	 * @param folder the game folder that failed to load
+	 * @param cause  the exception that stopped the folder from loading
+	 */
+	void addFailure(File folder, Throwable cause) {
+		failures.add(new Failure(folder, cause));
+	}
+
+	/**
+	 * Retrieves all Games that were loaded successfully.
+	 * 
+	 * @return an ArrayList of the loaded Games, sorted by folder name
+	 */
+	public ArrayList<Game> getGames() {
+		return games;
+	}
+
+	/**
+	 * Retrieves all game folders that could not be loaded.
+	 * 
+	 * @return an unmodifiable List of Failures, sorted by folder name
+	 */
+	public List<Failure> getFailures() {
+		return Collections.unmodifiableList(failures);
+	}
+
+	/**
+	 * Tells whether any game folder failed to load.
+	 * 
+	 * @return true if there is at least one Failure, else false
+	 */
+	public boolean hasFailures() {
+		return !failures.isEmpty();
+	}
+
+	/**
+	 * Describes a single game folder that could not be loaded, and why.
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	public static class Failure {
+
+		/** The game folder that could not be loaded */
+		private File folder;
+		/** The exception that stopped the folder from loading */
+		private Throwable cause;
+
+		/**
+		 * Creates a Failure for the given folder and cause.
+		 * 
+		 * @param folder the game folder that failed to load
+		 * @param cause  the exception that stopped the folder from loading
+		 */
+		Failure(File folder, Throwable cause) {
+			this.folder = folder;
+			this.cause = cause;
+		}
+
+		/**
+		 * Simple getter for the folder that failed to load
+		 * 
+		 * @return the folder field
+		 */
+		public File getFolder() {
+			return folder;
+		}
+
+		/**
+		 * Simple getter for the exception that stopped the folder from loading
+		 * 
+		 * @return the cause field
+		 */
+		public Throwable getCause() {
+			return cause;
+		}
+
+		/**
+		 * Gets the reason the folder failed to load
+		 * 
+		 * @return the message of the cause
+		 */
+		public String getMessage() {
+			return cause.getMessage();
+		}
+
+		@Override
+		public String toString() {
+			return "Game located at " + folder.getAbsolutePath() + " could not be loaded. Reason:\n" + getMessage();
+		}
+	}
+
+}
@@ -0,0 +1,358 @@
+package com.johnnietfeld.monty.one_minute_demo.model.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.johnnietfeld.monty.one_minute_demo.model.data.Category;
+import com.johnnietfeld.monty.one_minute_demo.model.data.CategoryIndex;
+import com.johnnietfeld.monty.one_minute_demo.model.data.ImageTable;
+import com.johnnietfeld.monty.one_minute_demo.model.io.OneMinuteDemoIO.GameProperties;
+
+/**
+ * Compact binary record of everything read from a game folder: its properties,
+ * and the name, size and modification time of every image in every category
+ * folder. Written next to the properties file after a full scan of the game
+ * folder, and read back on later launches instead of scanning again. The scan
+ * does not open any image, so pixel dimensions are not recorded; they are
+ * learned when each image is first loaded.
+ * 
+ * A manifest is only used while it is still valid: the properties file must
+ * have the same size and modification time, the game folder must hold exactly
+ * the same category folders, and every category folder must have the same
+ * modification time. Adding, removing or renaming an image changes the
+ * modification time of its category folder, so none of these checks require
+ * listing the images themselves.
+ * 
+ * @author Melody Griesen
+ *
+ */
+final class GameManifest {
+
+	/** Manifest file name, written next to the properties file */
+	static final String MANIFEST_FILE_NAME = "manifest.omc";
+	/** Marker at the start of every manifest file: "OMGM" */
+	private static final int MAGIC = 0x4F4D474D;
+	/** Version of the manifest file format */
+	private static final int VERSION = 3;
+
+	/** Modification time of the properties file when it was read */
+	private long propertiesModified;
+	/** Size in bytes of the properties file when it was read */
+	private long propertiesLength;
+	/** Properties read from the properties file */
+	private GameProperties properties;
+	/** Every category folder in the game folder, sorted by name */
+	private ArrayList<CategoryEntry> categories;
+
+	/**
+	 * Creates an empty manifest for the given properties file. The size and
+	 * modification time of the file are recorded before any images are scanned.
+	 * 
+	 * @param propertiesFile the properties file of the game folder
+	 * @param properties     the properties read from that file
+	 */
+	GameManifest(File propertiesFile, GameProperties properties) {
+		this.propertiesModified = propertiesFile.lastModified();
+		this.propertiesLength = propertiesFile.length();
+		this.properties = properties;
+		this.categories = new ArrayList<CategoryEntry>();
+	}
+
+	/**
+	 * Creates an empty manifest to be filled in from a manifest file.
+	 */
+	private GameManifest() {
+		this.categories = new ArrayList<CategoryEntry>();
+	}
+
+	/**
+	 * Simple getter for the properties of this manifest's game
+	 * 
+	 * @return the properties field
+	 */
+	GameProperties getProperties() {
+		return properties;
+	}
+
+	/**
+	 * Starts recording a category folder. The folder's modification time is
+	 * recorded now, before its images are listed, so that images added while
+	 * scanning invalidate the manifest.
+	 * 
+	 * @param categoryFolder the category folder about to be scanned
+	 * @return the CategoryEntry to record the folder's images in
+	 */
+	CategoryEntry addCategory(File categoryFolder) {
+		CategoryEntry entry = new CategoryEntry(categoryFolder.getName(), categoryFolder.lastModified());
+		categories.add(entry);
+		return entry;
+	}
+
+	/**
+	 * Rebuilds the table of images recorded in this manifest, with their file
+	 * sizes already known.
+	 * 
+	 * @param gameFolder the game folder this manifest was read from
+	 * @return an ImageTable of every image in every category of this manifest
+	 */
+	ImageTable getImages(File gameFolder) {
+		ImageTable images = new ImageTable(new CategoryIndex());
+		for (CategoryEntry entry : categories) {
+			String categoryPath = gameFolder.getAbsolutePath() + File.separator + entry.name + File.separator;
+			Category category = images.getCategoryIndex().intern(entry.name);
+			for (int i = 0; i < entry.size(); ++i) {
+				images.add(categoryPath, entry.names.get(i), category, 0, 0, entry.lengths[i]);
+			}
+		}
+		return images;
+	}
+
+	/**
+	 * Reads the manifest of a game folder, if it has one and it is still valid.
+	 * 
+	 * @param gameFolder     the game folder to read the manifest of
+	 * @param propertiesFile the properties file of the game folder
+	 * @return the GameManifest read, or null if there is no manifest, it could
+	 *         not be read, or the game folder has changed since it was written
+	 */
+	static GameManifest read(File gameFolder, File propertiesFile) {
+		File manifestFile = new File(gameFolder, MANIFEST_FILE_NAME);
+		if (!manifestFile.isFile()) {
+			return null;
+		}
+
+		GameManifest manifest = new GameManifest();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(manifestFile)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return null;
+			}
+
+			// Check that the properties file has not changed
+			manifest.propertiesModified = in.readLong();
+			manifest.propertiesLength = in.readLong();
+			if (manifest.propertiesModified != propertiesFile.lastModified()
+					|| manifest.propertiesLength != propertiesFile.length()) {
+				return null;
+			}
+
+			// Read properties
+			GameProperties properties = new GameProperties();
+			properties.setInstructions(in.readUTF());
+			properties.setIncrement(in.readInt());
+			properties.setDecrement(in.readInt());
+			properties.setTime(in.readInt());
+			properties.setCycle(in.readBoolean());
+			properties.setRandomize(in.readBoolean());
+			properties.setRequire60(in.readBoolean());
+			if (in.readBoolean()) {
+				properties.setSeed(in.readLong());
+			}
+			manifest.properties = properties;
+
+			// Check that the game folder still holds exactly the same category folders
+			File[] categoryFolders = listCategoryFolders(gameFolder);
+			int categoryCount = in.readInt();
+			if (categoryFolders == null || categoryFolders.length != categoryCount) {
+				return null;
+			}
+
+			// Read each category, checking that its folder has not changed
+			for (int c = 0; c < categoryCount; ++c) {
+				String name = in.readUTF();
+				long modified = in.readLong();
+				if (!categoryFolders[c].getName().equals(name) || categoryFolders[c].lastModified() != modified) {
+					return null;
+				}
+				CategoryEntry entry = new CategoryEntry(name, modified);
+				int imageCount = in.readInt();
+				entry.ensureCapacity(imageCount);
+				for (int i = 0; i < imageCount; ++i) {
+					entry.add(in.readUTF(), in.readLong(), in.readLong());
+				}
+				manifest.categories.add(entry);
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			// A manifest that cannot be read is simply not used
+			return null;
+		}
+		return manifest;
+	}
+
+	/**
+	 * Writes this manifest next to the properties file of the game folder. The
+	 * manifest is written to a temporary file first, and moved into place once
+	 * complete. A manifest that cannot be written, such as on read-only storage,
+	 * is silently skipped.
+	 * 
+	 * @param gameFolder the game folder to write the manifest into
+	 * @return true if the manifest was written, else false
+	 */
+	boolean write(File gameFolder) {
+		File manifestFile = new File(gameFolder, MANIFEST_FILE_NAME);
+		File tempFile = new File(gameFolder, MANIFEST_FILE_NAME + ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+
+				// Write properties
+				out.writeLong(propertiesModified);
+				out.writeLong(propertiesLength);
+				out.writeUTF(properties.getInstructions());
+				out.writeInt(properties.getIncrement());
+				out.writeInt(properties.getDecrement());
+				out.writeInt(properties.getTime());
+				out.writeBoolean(properties.isCycle());
+				out.writeBoolean(properties.isRandomize());
+				out.writeBoolean(properties.isRequire60());
+				out.writeBoolean(properties.hasSeed());
+				if (properties.hasSeed()) {
+					out.writeLong(properties.getSeed());
+				}
+
+				// Write categories and their images
+				out.writeInt(categories.size());
+				for (CategoryEntry entry : categories) {
+					out.writeUTF(entry.name);
+					out.writeLong(entry.modified);
+					out.writeInt(entry.size());
+					for (int i = 0; i < entry.size(); ++i) {
+						out.writeUTF(entry.names.get(i));
+						out.writeLong(entry.lengths[i]);
+						out.writeLong(entry.modifieds[i]);
+					}
+				}
+			}
+			try {
+				Files.move(tempFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			return true;
+		} catch (IOException e) {
+			tempFile.delete();
+			return false;
+		}
+	}
+
+	/**
+	 * Lists the category folders of a game folder, sorted by name.
+	 * 
+	 * @param gameFolder the game folder to list
+	 * @return the sorted array of category folders, or null if the game folder
+	 *         could not be listed
+	 */
+	static File[] listCategoryFolders(File gameFolder) {
+		File[] categoryFolders = gameFolder.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File pathname) {
+				return !pathname.isFile();
+			}
+		});
+		if (categoryFolders != null) {
+			Arrays.sort(categoryFolders);
+		}
+		return categoryFolders;
+	}
+
+	/**
+	 * Record of a single category folder and the images in it. Image data is kept
+	 * in parallel arrays to keep large manifests compact in memory.
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	static final class CategoryEntry {
+
+		/** Name of the category folder */
+		private String name;
+		/** Modification time of the category folder */
+		private long modified;
+		/** File names of the images in the folder */
+		private ArrayList<String> names;
+		/** File sizes of the images in the folder */
+		private long[] lengths;
+		/** Modification times of the images in the folder */
+		private long[] modifieds;
+
+		/** Initial capacity of the image arrays */
+		private static final int INITIAL_CAPACITY = 16;
+
+		/**
+		 * Creates an empty CategoryEntry.
+		 * 
+		 * @param name     name of the category folder
+		 * @param modified modification time of the category folder
+		 */
+		private CategoryEntry(String name, long modified) {
+			this.name = name;
+			this.modified = modified;
+			this.names = new ArrayList<String>();
+			this.lengths = new long[INITIAL_CAPACITY];
+			this.modifieds = new long[INITIAL_CAPACITY];
+		}
+
+		/**
+		 * Gets the number of images recorded in this category
+		 * 
+		 * @return the number of images
+		 */
+		int size() {
+			return names.size();
+		}
+
+		/**
+		 * Records an image file.
+		 * 
+		 * @param imageFile the image file in this category's folder
+		 */
+		void add(File imageFile) {
+			add(imageFile.getName(), imageFile.length(), imageFile.lastModified());
+		}
+
+		/**
+		 * Records the data of an image file.
+		 * 
+		 * @param fileName the name of the image file
+		 * @param length   the size of the image file in bytes
+		 * @param modified the modification time of the image file
+		 */
+		private void add(String fileName, long length, long modified) {
+			int index = names.size();
+			ensureCapacity(index + 1);
+			names.add(fileName);
+			lengths[index] = length;
+			modifieds[index] = modified;
+		}
+
+		/**
+		 * Grows the image arrays to hold at least the given number of images.
+		 * 
+		 * @param capacity the number of images to make room for
+		 */
+		private void ensureCapacity(int capacity) {
+			if (capacity <= lengths.length) {
+				return;
+			}
+			int newCapacity = Math.max(capacity, lengths.length * 2);
+			names.ensureCapacity(newCapacity);
+			lengths = Arrays.copyOf(lengths, newCapacity);
+			modifieds = Arrays.copyOf(modifieds, newCapacity);
+		}
+	}
+
+}
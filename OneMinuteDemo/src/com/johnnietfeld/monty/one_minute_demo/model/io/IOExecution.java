@@ -0,0 +1,150 @@
+package com.johnnietfeld.monty.one_minute_demo.model.io;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Chooses the threads that read image files. In platform mode, files are read
+ * by a fixed pool of platform threads, each blocked while its file is read. In
+ * virtual mode, every read gets its own virtual thread, so hundreds of reads
+ * from slow storage can be in flight without as many OS threads, while
+ * decoding stays on a pool bounded by the number of cores.
+ * 
+ * Virtual threads need JDK 21 or later. They are looked up when the program
+ * starts, so it still compiles and runs on older JDKs, where virtual mode falls
+ * back to platform threads.
+ * 
+ * The mode is read from the omg.ioMode system property, platform or virtual,
+ * and can be changed with setMode.
+ * 
+ * @author Melody Griesen
+ *
+ */
+public final class IOExecution {
+
+	/**
+	 * Ways to run file reads
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	public enum Mode {
+		/** Reads run on a fixed pool of platform threads */
+		PLATFORM,
+		/** Each read runs on its own virtual thread, when the JDK has them */
+		VIRTUAL
+	}
+
+	/** System property that can be set to choose the mode */
+	public static final String MODE_PROPERTY = "omg.ioMode";
+
+	/** Executors.newVirtualThreadPerTaskExecutor, or null before JDK 21 */
+	private static final Method NEW_VIRTUAL_EXECUTOR = findVirtualExecutor();
+	/** The mode new executors are made in */
+	private static volatile Mode mode = parseMode(System.getProperty(MODE_PROPERTY));
+
+	/**
+	 * IOExecution only has static methods
+	 */
+	private IOExecution() {
+	}
+
+	/**
+	 * Looks up the factory for virtual thread executors
+	 * 
+	 * @return the factory method, or null if this JDK has no virtual threads
+	 */
+	private static Method findVirtualExecutor() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Parses a mode from its name, in any case
+	 * 
+	 * @param name the name of the mode, or null for platform mode
+	 * @return the mode
+	 * @throws IllegalArgumentException if there is no mode with that name
+	 */
+	public static Mode parseMode(String name) {
+		if (name == null || name.isBlank()) {
+			return Mode.PLATFORM;
+		}
+		try {
+			return Mode.valueOf(name.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown I/O mode " + name + ", expected platform or virtual");
+		}
+	}
+
+	/**
+	 * Sets the mode executors made from now on use
+	 * 
+	 * @param newMode the mode to use
+	 * @throws IllegalArgumentException if newMode is null
+	 */
+	public static void setMode(Mode newMode) {
+		if (newMode == null) {
+			throw new IllegalArgumentException("I/O mode cannot be null!");
+		}
+		mode = newMode;
+	}
+
+	/**
+	 * Simple getter for the chosen mode
+	 * 
+	 * @return the mode field
+	 */
+	public static Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Tells whether this JDK has virtual threads
+	 * 
+	 * @return true if virtual mode can be used, else false
+	 */
+	public static boolean isVirtualAvailable() {
+		return NEW_VIRTUAL_EXECUTOR != null;
+	}
+
+	/**
+	 * Tells whether reads run on virtual threads, which is when virtual mode is
+	 * chosen and this JDK has them
+	 * 
+	 * @return true if new read executors use virtual threads, else false
+	 */
+	public static boolean usesVirtualThreads() {
+		return mode == Mode.VIRTUAL && isVirtualAvailable();
+	}
+
+	/**
+	 * Makes an executor for reading files. In virtual mode every task runs on its
+	 * own virtual thread. Otherwise tasks run on a fixed pool of platform threads.
+	 * 
+	 * @param platformThreads the number of threads to use in platform mode
+	 * @param factory         makes the platform threads, or null for the default
+	 * @return the executor, to be shut down once no longer needed
+	 */
+	public static ExecutorService newReadExecutor(int platformThreads, ThreadFactory factory) {
+		if (usesVirtualThreads()) {
+			try {
+				return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+			} catch (IllegalAccessException | InvocationTargetException e) {
+				throw new IllegalStateException("Could not start virtual threads", e);
+			}
+		}
+		if (factory == null) {
+			return Executors.newFixedThreadPool(platformThreads);
+		}
+		return Executors.newFixedThreadPool(platformThreads, factory);
+	}
+
+}
@@ -4,10 +4,17 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import com.johnnietfeld.monty.one_minute_demo.model.data.Category;
-import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
+import com.johnnietfeld.monty.one_minute_demo.model.data.CategoryIndex;
+import com.johnnietfeld.monty.one_minute_demo.model.data.ImageTable;
+import com.johnnietfeld.monty.one_minute_demo.model.event.CategoryReadEvent;
 import com.johnnietfeld.monty.one_minute_demo.model.list.ImageList;
 import com.johnnietfeld.monty.one_minute_demo.model.manager.Game;
 
@@ -22,13 +29,35 @@ public class OneMinuteDemoIO {
 	/** Properties file name */
 	private static final String PROPERTIES_FILE_NAME = "properties.omg";
 
+	/** Whether game folders are read through their cached manifest */
+	private static volatile boolean useManifest = true;
+
+	/**
+	 * Read all game files in a 'games' folder, one after another. Folders that
+	 * could not be loaded are returned as failures for the caller to report.
+	 * 
+	 * @param gamesFolder the folder that contains all game folders
+	 * @return a GameLoadResult holding all loaded Games and all folders that could
+	 *         not be loaded
+	 * @throws IllegalArgumentException if gamesFolder is not a readable directory
+	 */
+	public static GameLoadResult readGames(File gamesFolder) {
+		return loadGames(gamesFolder, false);
+	}
+
 	/**
-	 * Read all game files in a 'games' folder
+	 * Read all game files in a 'games' folder, optionally loading the game folders
+	 * concurrently. Game folders are loaded in order of their names, and games in
+	 * the result keep that order no matter which folders finish loading first.
 	 * 
 	 * @param gamesFolder the folder that contains all game folders
-	 * @return an ArrayList of Games that have been successfully loaded
+	 * @param parallel    true to load game folders concurrently, false to load
+	 *                    them one after another
+	 * @return a GameLoadResult holding all loaded Games and all folders that could
+	 *         not be loaded
+	 * @throws IllegalArgumentException if gamesFolder is not a readable directory
 	 */
-	public static ArrayList<Game> readGames(File gamesFolder) {
+	public static GameLoadResult loadGames(File gamesFolder, boolean parallel) {
 
 		// Make a FileFilter to pick only directory files when searching a directory
 		FileFilter onlyDirectories = new FileFilter() {
@@ -40,24 +69,58 @@ public class OneMinuteDemoIO {
 
 		// Retrieve the list of game directories from the parent directory
 		File[] gameFiles = gamesFolder.listFiles(onlyDirectories);
+		if (gameFiles == null) {
+			throw new IllegalArgumentException("Games folder at " + gamesFolder.getAbsolutePath() + " could not be read");
+		}
+		// Sort the game directories by name, so games are always in the same order
+		Arrays.sort(gameFiles);
+
+		// Create the result to collect games and failures into
+		GameLoadResult result = new GameLoadResult();
+
+		if (!parallel || gameFiles.length < 2) {
+			// Iterate through all game files, attempt to add them to the result
+			for (File gameFile : gameFiles) {
+				try {
+					result.addGame(readGameFolder(gameFile));
+				} catch (RuntimeException e) {
+					result.addFailure(gameFile, e);
+				}
+			}
+			return result;
+		}
 
-		// Create Game List. Can't assume all games will load properly, so this cannot
-		// be an array with length gameFiles.length
-		ArrayList<Game> games = new ArrayList<Game>();
-
-		// Iterate through all game files, attempt to add them to the games array list
-		for (File gameFile : gameFiles) {
-			try {
-				games.add(readGameFolder(gameFile));
-			} catch (IllegalArgumentException e) {
-				System.out.println("Game located at " + gameFile.getAbsolutePath() + " could not be loaded. Reason:");
-				System.out.println(e.getMessage());
-				e.printStackTrace();
+		// Start one loading task per game folder, on a pool sized to the machine, or
+		// on virtual threads
+		int threads = Math.min(gameFiles.length, Runtime.getRuntime().availableProcessors());
+		ExecutorService pool = IOExecution.newReadExecutor(threads, null);
+		try {
+			ArrayList<Future<Game>> loads = new ArrayList<Future<Game>>(gameFiles.length);
+			for (File gameFile : gameFiles) {
+				loads.add(pool.submit(new Callable<Game>() {
+					@Override
+					public Game call() {
+						return readGameFolder(gameFile);
+					}
+				}));
+			}
+
+			// Collect the results in folder order
+			for (int i = 0; i < gameFiles.length; ++i) {
+				try {
+					result.addGame(loads.get(i).get());
+				} catch (ExecutionException e) {
+					result.addFailure(gameFiles[i], e.getCause());
+				}
 			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while loading games from " + gamesFolder.getAbsolutePath());
+		} finally {
+			pool.shutdownNow();
 		}
 
-		// Return all games that were successfully loaded
-		return games;
+		return result;
 	}
 
 	/**
@@ -73,11 +136,32 @@ public class OneMinuteDemoIO {
 		// Retrieve the properties file
 		File propertiesFile = new File(gameFolder.getAbsolutePath() + "/" + PROPERTIES_FILE_NAME);
 
-		// Read properties from file
-		GameProperties properties = readPropertiesFile(propertiesFile);
+		// Use the game's manifest if it is still valid, to skip reading the properties
+		// file and scanning all category folders
+		GameManifest manifest = useManifest ? GameManifest.read(gameFolder, propertiesFile) : null;
+
+		GameProperties properties;
+		ImageTable table;
+		if (manifest != null) {
+			properties = manifest.getProperties();
+			table = manifest.getImages(gameFolder);
+		} else {
+			// Read properties from file
+			properties = readPropertiesFile(propertiesFile);
+
+			// Create ImageTable from the folders in the game folder, recording them in a
+			// new manifest as they are scanned
+			manifest = new GameManifest(propertiesFile, properties);
+			table = readImages(gameFolder, manifest);
+
+			// Save the manifest for the next launch
+			if (useManifest) {
+				manifest.write(gameFolder);
+			}
+		}
 
-		// Create ImageList from the folders in the game folder
-		ImageList images = readImages(gameFolder);
+		// Create ImageList from the table, shuffled by the seed from properties if set
+		ImageList images = new ImageList(table, properties.hasSeed() ? properties.getSeed() : ImageList.newSeed());
 
 		// Set cycle and randomize from properties
 		images.setCycle(properties.isCycle());
@@ -91,6 +175,19 @@ public class OneMinuteDemoIO {
 		return game;
 	}
 
+	/**
+	 * Sets whether game folders are read through their cached manifest. When
+	 * enabled, a full scan of a game folder writes a manifest next to its
+	 * properties file, and later reads use that manifest for as long as the game
+	 * folder does not change. Enabled by default.
+	 * 
+	 * @param assignment true to read and write manifests, false to always scan
+	 *                   game folders in full
+	 */
+	public static void setUseManifest(boolean assignment) {
+		useManifest = assignment;
+	}
+
 	/**
 	 * Splits the provided string into two components by the first "=" character in
 	 * the string.
@@ -212,6 +309,9 @@ public class OneMinuteDemoIO {
 				case "time":
 					gameProperties.setTime(Integer.parseInt(propertyPair[1]));
 					break;
+				case "seed":
+					gameProperties.setSeed(Long.parseLong(propertyPair[1]));
+					break;
 				default:
 					throw new IllegalArgumentException(
 							"Property file at " + propertiesFile.getAbsolutePath() + ", line " + currentLine + ": \n"
@@ -241,12 +341,12 @@ public class OneMinuteDemoIO {
 	}
 
 	/**
-	 * Private POJO to hold all information about a Game loaded from a properties
-	 * file.
+	 * POJO to hold all information about a Game loaded from a properties file.
+	 * Package visible so that it can be saved in a GameManifest.
 	 * 
 	 * @author Melody Griesen
 	 */
-	private static class GameProperties {
+	static class GameProperties {
 		// Required data
 		private String instructions = null;
 		private int increment = 0;
@@ -257,6 +357,8 @@ public class OneMinuteDemoIO {
 		private boolean cycle = false;
 		private boolean randomize = false;
 		private boolean require60 = true;
+		private boolean hasSeed = false;
+		private long seed = 0;
 
 		/**
 		 * @return the instructions
@@ -355,6 +457,28 @@ public class OneMinuteDemoIO {
 		void setRequire60(boolean require60) {
 			this.require60 = require60;
 		}
+
+		/**
+		 * @return true if a seed was set, false if the game gets a new seed each time
+		 */
+		boolean hasSeed() {
+			return hasSeed;
+		}
+
+		/**
+		 * @return the seed, meaningful only if hasSeed() is true
+		 */
+		long getSeed() {
+			return seed;
+		}
+
+		/**
+		 * @param seed the seed to set
+		 */
+		void setSeed(long seed) {
+			this.hasSeed = true;
+			this.seed = seed;
+		}
 	}
 
 	/**
@@ -362,23 +486,24 @@ public class OneMinuteDemoIO {
 	 * 
 	 * @param gameFolder the game folder containing category folders, each of which
 	 *                   contain images
-	 * @return an ImageList of all images found in the GameFolder
+	 * @param manifest   the GameManifest to record all category folders and images
+	 *                   in
+	 * @return an ImageTable of all images found in the GameFolder
 	 */
-	private static ImageList readImages(File gameFolder) {
+	private static ImageTable readImages(File gameFolder, GameManifest manifest) {
 		// Get a list of directories for all Categories in the game folder
-		File[] categoryFolders = gameFolder.listFiles(new FileFilter() {
-			@Override
-			public boolean accept(File pathname) {
-				return !pathname.isFile();
-			}
-		});
-		// Create a master ArrayList to hold all images in all categories
-		ArrayList<ClassifiedImage> allImages = new ArrayList<ClassifiedImage>();
+		File[] categoryFolders = GameManifest.listCategoryFolders(gameFolder);
+		if (categoryFolders == null) {
+			throw new IllegalArgumentException("Game folder at " + gameFolder.getAbsolutePath() + " could not be read");
+		}
+		// Create a master ImageTable to hold all images in all categories, interning
+		// one Category per folder, numbered in folder order
+		ImageTable allImages = new ImageTable(new CategoryIndex());
 
 		// Iterate through the array of category folders
 		for (File categoryFolder : categoryFolders) {
-			// Load all images from one category folder into the master ArrayList
-			readImagesInCategory(categoryFolder, allImages);
+			// Load all images from one category folder into the master ImageTable
+			readImagesInCategory(categoryFolder, allImages, manifest.addCategory(categoryFolder));
 		}
 		// All images have been correctly labeled with their Category and loaded into
 		// the master ArrayList
@@ -389,19 +514,26 @@ public class OneMinuteDemoIO {
 					+ "\nNo images within category folders. Place at folder with at least one image in the game folder");
 		}
 
-		// Make an ImageList object from the ArrayList and return it
-		return new ImageList(allImages);
+		// Return the master ImageTable
+		return allImages;
 	}
 
 	/**
 	 * Private helper method to read all images in a Category folder
 	 * 
 	 * @param categoryFolder folder of images, titled with the category name
-	 * @param images         ArrayList for loaded images to be added to
+	 * @param images         ImageTable for loaded images to be added to, whose
+	 *                       CategoryIndex the Category is interned in
+	 * @param entry          the manifest entry to record each image in
 	 */
-	private static void readImagesInCategory(File categoryFolder, ArrayList<ClassifiedImage> images) {
-		// Make Category to apply to all images
-		Category category = new Category(categoryFolder.getName());
+	private static void readImagesInCategory(File categoryFolder, ImageTable images,
+			GameManifest.CategoryEntry entry) {
+		CategoryReadEvent event = new CategoryReadEvent();
+		event.begin();
+		// Intern the Category to apply to all images
+		Category category = images.getCategoryIndex().intern(categoryFolder.getName());
+		// All images share the folder's path as their location prefix
+		String prefix = categoryFolder.getAbsolutePath() + File.separator;
 		// Get the array of all Files in the directory
 		File[] imageFiles = categoryFolder.listFiles(new FileFilter() {
 			@Override
@@ -409,14 +541,18 @@ public class OneMinuteDemoIO {
 				return pathname.isFile();
 			}
 		});
+		if (imageFiles == null) {
+			return;
+		}
 
-		// Iterate through all files in the folder
+		// Iterate through all files in the folder. No file is opened here, so the
+		// dimensions stay unknown until each image is first decoded
 		for (File imageFile : imageFiles) {
-			// Create a new ClassifiedImage object
-			ClassifiedImage image = new ClassifiedImage(imageFile.getAbsolutePath(), category, imageFile.getName());
-			// Add image to the list of images
-			images.add(image);
+			// Add image to the table of images, and record it in the manifest
+			images.add(prefix, imageFile.getName(), category, 0, 0, imageFile.length());
+			entry.add(imageFile);
 		}
+		event.finish(categoryFolder, imageFiles);
 	}
 
 }
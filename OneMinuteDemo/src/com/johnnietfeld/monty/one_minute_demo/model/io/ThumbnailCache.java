@@ -0,0 +1,562 @@
+package com.johnnietfeld.monty.one_minute_demo.model.io;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Persistent disk cache of downscaled images. Each entry is keyed by a hash of
+ * the source image file's path and the size it was scaled to fit, so the same
+ * picture is found again across sessions. Entries are small files that decode
+ * much faster than the full-resolution originals.
+ * 
+ * Next to the entries of a source file, a stamp records the file's size,
+ * modification time and a hash of its contents. A lookup only compares the size
+ * and modification time, without reading the source file. Only when they no
+ * longer match is the source file hashed, and its entries are kept if the
+ * contents are still the same, or replaced if they are not.
+ * 
+ * The cache keeps to a byte budget. Entries and stamps are touched whenever
+ * they are used, and once the directory holds more than the budget, the least
+ * recently used files are deleted until it is back below.
+ * 
+ * @author Melody Griesen
+ *
+ */
+public class ThumbnailCache {
+
+	/** System property that can be set to choose the default cache directory */
+	public static final String DIRECTORY_PROPERTY = "omg.thumbnails";
+	/** System property that can be set to choose the default byte budget */
+	public static final String BUDGET_PROPERTY = "omg.thumbnailBytes";
+	/** Default byte budget: 256 megabytes */
+	public static final long DEFAULT_BYTE_BUDGET = Long.getLong(BUDGET_PROPERTY, 256L * 1024 * 1024);
+	/** Default cache directory, inside the user's home directory */
+	private static final String DEFAULT_DIRECTORY = System.getProperty("user.home") + File.separator
+			+ ".one-minute-demo" + File.separator + "thumbnails";
+	/** Size of the buffer used to hash image files */
+	private static final int HASH_BUFFER_SIZE = 64 * 1024;
+	/** Extension of the stamp files recording what each source file looked like */
+	private static final String STAMP_EXTENSION = ".src";
+
+	/** The cache used by ClassifiedImages, or null if caching is disabled */
+	private static volatile ThumbnailCache defaultCache = new ThumbnailCache(
+			new File(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY)));
+
+	/** Directory holding all cached images */
+	private File directory;
+	/** Most bytes of files to keep in the directory */
+	private long byteBudget;
+	/** Bytes of files in the directory, or -1 if not yet measured */
+	private AtomicLong usedBytes = new AtomicLong(-1);
+	/** Number of times a source file's contents were hashed */
+	private AtomicLong hashCount = new AtomicLong();
+	/**
+	 * Content hashes of source files seen this session, keyed by path, size and
+	 * modification time so that each file is only hashed once
+	 */
+	private ConcurrentHashMap<String, String> hashes;
+
+	/**
+	 * Creates a ThumbnailCache that stores its images in the given directory,
+	 * within the default byte budget. The directory is created when the first
+	 * image is stored.
+	 * 
+	 * @param directory the directory to store cached images in
+	 * @throws IllegalArgumentException if directory is null
+	 */
+	public ThumbnailCache(File directory) {
+		this(directory, DEFAULT_BYTE_BUDGET);
+	}
+
+	/**
+	 * Creates a ThumbnailCache that stores its images in the given directory,
+	 * deleting the least recently used ones once they take more than the given
+	 * number of bytes. The directory is created when the first image is stored.
+	 * 
+	 * @param directory  the directory to store cached images in
+	 * @param byteBudget the most bytes of files to keep in the directory
+	 * @throws IllegalArgumentException if directory is null or byteBudget is
+	 *                                  negative
+	 */
+	public ThumbnailCache(File directory, long byteBudget) {
+		if (directory == null) {
+			throw new IllegalArgumentException("Thumbnail cache directory cannot be null");
+		}
+		if (byteBudget < 0) {
+			throw new IllegalArgumentException("Thumbnail cache byte budget cannot be negative");
+		}
+		this.directory = directory;
+		this.byteBudget = byteBudget;
+		this.hashes = new ConcurrentHashMap<String, String>();
+	}
+
+	/**
+	 * Retrieves the cache used when ClassifiedImages are loaded at a target size.
+	 * 
+	 * @return the default ThumbnailCache, or null if caching is disabled
+	 */
+	public static ThumbnailCache getDefault() {
+		return defaultCache;
+	}
+
+	/**
+	 * Sets the cache used when ClassifiedImages are loaded at a target size.
+	 * 
+	 * @param cache the ThumbnailCache to use, or null to disable caching
+	 */
+	public static void setDefault(ThumbnailCache cache) {
+		defaultCache = cache;
+	}
+
+	/**
+	 * Simple getter for this cache's directory
+	 * 
+	 * @return the directory field
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Simple getter for the most bytes of files this cache keeps
+	 * 
+	 * @return the byteBudget field
+	 */
+	public long getByteBudget() {
+		return byteBudget;
+	}
+
+	/**
+	 * Gets how many times the contents of a source file were hashed, which only
+	 * happens when an entry is first stored or a source file has changed
+	 * 
+	 * @return the number of source files hashed
+	 */
+	long getHashCount() {
+		return hashCount.get();
+	}
+
+	/**
+	 * Reads the cached copy of a source image scaled to fit the target size.
+	 * 
+	 * @param source the full-resolution source image file
+	 * @param target the size the image was scaled to fit
+	 * @return the cached image, or null if there is no usable cached copy
+	 */
+	public BufferedImage read(File source, Dimension target) {
+		try {
+			File entry = findEntry(source, target);
+			if (entry == null) {
+				return null;
+			}
+			return ImageIO.read(entry);
+		} catch (IOException e) {
+			// A cached copy that cannot be read is treated as a miss
+			return null;
+		}
+	}
+
+	/**
+	 * Stores a copy of a source image scaled to fit the target size. Opaque images
+	 * are stored as JPEG, and images with transparency as PNG. The entry is written
+	 * to a temporary file first and moved into place once complete, so readers
+	 * never see a partial entry. An image that cannot be stored is silently
+	 * skipped.
+	 * 
+	 * @param source the full-resolution source image file
+	 * @param target the size the image was scaled to fit
+	 * @param scaled the scaled image to store
+	 */
+	public void write(File source, Dimension target, BufferedImage scaled) {
+		write(source, target, scaled, null);
+	}
+
+	/**
+	 * Stores a copy of a source image scaled to fit the target size, as
+	 * write(File, Dimension, BufferedImage) does, hashing contents of the source
+	 * file that have already been read instead of reading it again.
+	 * 
+	 * @param source   the full-resolution source image file
+	 * @param target   the size the image was scaled to fit
+	 * @param scaled   the scaled image to store
+	 * @param contents the contents of the source file, or null to read the file
+	 */
+	public void write(File source, Dimension target, BufferedImage scaled, byte[] contents) {
+		File temp = null;
+		try {
+			boolean alpha = scaled.getColorModel().hasAlpha();
+			String format = alpha ? "png" : "jpg";
+			String key = pathKey(source);
+			File entry = new File(directory, entryName(key, target, format));
+			boolean current = checkStamp(source, key);
+			if (current && entry.isFile()) {
+				return;
+			}
+			directory.mkdirs();
+			measure();
+			temp = File.createTempFile("thumb", ".tmp", directory);
+
+			if (!ImageIO.write(alpha ? scaled : toRGB(scaled), format, temp)) {
+				temp.delete();
+				return;
+			}
+			long written = temp.length();
+			// Replace any entry left from an older version of the source file
+			moveIntoPlace(temp, entry);
+			if (!current) {
+				String hash = contents == null ? contentHash(source) : contentHash(source, contents);
+				written += writeStamp(source, key, hash);
+			}
+			added(written);
+		} catch (IOException e) {
+			if (temp != null) {
+				temp.delete();
+			}
+		}
+	}
+
+	/**
+	 * Moves a finished temporary file into place, replacing any file already there
+	 * 
+	 * @param temp   the temporary file
+	 * @param target where the file belongs
+	 * @throws IOException if the file could not be moved
+	 */
+	private static void moveIntoPlace(File temp, File target) throws IOException {
+		try {
+			Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Finds the cached entry for a source image and target size, in either format,
+	 * and marks it as used.
+	 * 
+	 * @param source the full-resolution source image file
+	 * @param target the size the image was scaled to fit
+	 * @return the entry file, or null if there is none
+	 * @throws IOException if the source file had changed and could not be hashed
+	 */
+	private File findEntry(File source, Dimension target) throws IOException {
+		if (!directory.isDirectory()) {
+			return null;
+		}
+		String key = pathKey(source);
+		if (!checkStamp(source, key)) {
+			return null;
+		}
+		for (String format : new String[] { "jpg", "png" }) {
+			File entry = new File(directory, entryName(key, target, format));
+			if (entry.isFile()) {
+				// Keep the entry and its stamp from being evicted soon
+				long now = System.currentTimeMillis();
+				entry.setLastModified(now);
+				new File(directory, key + STAMP_EXTENSION).setLastModified(now);
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks that the entries of a source file were made from its current
+	 * contents. Compares the size and modification time recorded in the stamp,
+	 * and only hashes the source file when they differ. A stamp whose contents
+	 * still match is updated, and one whose contents do not is deleted.
+	 * 
+	 * @param source the full-resolution source image file
+	 * @param key    the path key of the source file
+	 * @return true if the entries of the source file are current, false if there
+	 *         are none or they are out of date
+	 * @throws IOException if the source file had changed and could not be hashed
+	 */
+	private boolean checkStamp(File source, String key) throws IOException {
+		File stamp = new File(directory, key + STAMP_EXTENSION);
+		String[] recorded;
+		try {
+			recorded = new String(Files.readAllBytes(stamp.toPath()), StandardCharsets.UTF_8).trim().split(" ");
+		} catch (IOException e) {
+			// No stamp, so no entries for this source file
+			return false;
+		}
+		if (recorded.length != 3) {
+			stamp.delete();
+			return false;
+		}
+		if (recorded[0].equals(Long.toString(source.length()))
+				&& recorded[1].equals(Long.toString(source.lastModified()))) {
+			return true;
+		}
+		// The file was touched or replaced, see whether its contents changed
+		if (contentHash(source).equals(recorded[2])) {
+			writeStamp(source, key, recorded[2]);
+			return true;
+		}
+		stamp.delete();
+		deleteEntries(key);
+		return false;
+	}
+
+	/**
+	 * Deletes every entry of a source file, at any target size
+	 * 
+	 * @param key the path key of the source file
+	 */
+	private void deleteEntries(String key) {
+		File[] entries = directory.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File pathname) {
+				return pathname.getName().startsWith(key + "-");
+			}
+		});
+		if (entries == null) {
+			return;
+		}
+		long freed = 0;
+		for (File entry : entries) {
+			long length = entry.length();
+			if (entry.delete()) {
+				freed += length;
+			}
+		}
+		if (usedBytes.get() >= 0) {
+			usedBytes.addAndGet(-freed);
+		}
+	}
+
+	/**
+	 * Records the size, modification time and content hash of a source file in its
+	 * stamp
+	 * 
+	 * @param source the full-resolution source image file
+	 * @param key    the path key of the source file
+	 * @param hash   the content hash of the source file
+	 * @return the size of the written stamp in bytes
+	 * @throws IOException if the stamp could not be written
+	 */
+	private long writeStamp(File source, String key, String hash) throws IOException {
+		File temp = File.createTempFile("stamp", ".tmp", directory);
+		try {
+			Files.write(temp.toPath(), (source.length() + " " + source.lastModified() + " " + hash)
+					.getBytes(StandardCharsets.UTF_8));
+			long written = temp.length();
+			moveIntoPlace(temp, new File(directory, key + STAMP_EXTENSION));
+			return written;
+		} finally {
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Makes the file name of a cache entry
+	 * 
+	 * @param key    path key of the source image
+	 * @param target the size the image was scaled to fit
+	 * @param format the image format of the entry
+	 * @return the entry's file name
+	 */
+	private static String entryName(String key, Dimension target, String format) {
+		return key + "-" + target.width + "x" + target.height + "." + format;
+	}
+
+	/**
+	 * Makes the key a source file's entries are stored under, a hash of its
+	 * absolute path
+	 * 
+	 * @param source the source image file
+	 * @return the key
+	 */
+	private static String pathKey(File source) {
+		return toHex(newDigest().digest(source.getAbsolutePath().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Records that files were added to the directory, and evicts the least
+	 * recently used files if it now holds more than the byte budget
+	 * 
+	 * @param bytes the bytes added
+	 */
+	private void added(long bytes) {
+		if (usedBytes.addAndGet(bytes) > byteBudget) {
+			evict();
+		}
+	}
+
+	/**
+	 * Measures how many bytes of files the directory holds, unless it has already
+	 * been measured
+	 */
+	private synchronized void measure() {
+		if (usedBytes.get() >= 0) {
+			return;
+		}
+		long used = 0;
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				used += file.length();
+			}
+		}
+		usedBytes.set(used);
+	}
+
+	/**
+	 * Deletes the least recently used files until the directory holds no more
+	 * than nine tenths of the byte budget, so that it is not evicted from again on
+	 * the very next store
+	 */
+	private synchronized void evict() {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		// Read every time once, since other threads may touch files while sorting
+		HashMap<File, Long> used = new HashMap<File, Long>();
+		long total = 0;
+		for (File file : files) {
+			used.put(file, file.lastModified());
+			total += file.length();
+		}
+		Arrays.sort(files, (a, b) -> Long.compare(used.get(a), used.get(b)));
+
+		long goal = byteBudget - byteBudget / 10;
+		for (File file : files) {
+			if (total <= goal) {
+				break;
+			}
+			long length = file.length();
+			if (file.delete()) {
+				total -= length;
+			}
+		}
+		usedBytes.set(total);
+	}
+
+	/**
+	 * Hashes the contents of a source image with SHA-256. Hashes are remembered
+	 * for the rest of the session, for as long as the file's size and
+	 * modification time do not change.
+	 * 
+	 * @param source the file to hash
+	 * @return the hash as a hex string
+	 * @throws IOException if the file could not be read
+	 */
+	String contentHash(File source) throws IOException {
+		String key = hashKey(source);
+		String hash = hashes.get(key);
+		if (hash != null) {
+			return hash;
+		}
+
+		hashCount.incrementAndGet();
+		MessageDigest digest = newDigest();
+		byte[] buffer = new byte[HASH_BUFFER_SIZE];
+		try (InputStream in = new FileInputStream(source)) {
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, read);
+			}
+		}
+
+		hash = toHex(digest.digest());
+		hashes.put(key, hash);
+		return hash;
+	}
+
+	/**
+	 * Hashes the contents of a source image that have already been read, and
+	 * remembers the hash, as contentHash(File) does without reading the file again
+	 * 
+	 * @param source   the file the contents were read from
+	 * @param contents the contents of the file
+	 * @return the hash as a hex string
+	 */
+	private String contentHash(File source, byte[] contents) {
+		String key = hashKey(source);
+		String hash = hashes.get(key);
+		if (hash == null) {
+			hashCount.incrementAndGet();
+			hash = toHex(newDigest().digest(contents));
+			hashes.put(key, hash);
+		}
+		return hash;
+	}
+
+	/**
+	 * Makes the key a file's hash is remembered under, which changes whenever the
+	 * file's size or modification time does
+	 * 
+	 * @param source the hashed file
+	 * @return the key
+	 */
+	private static String hashKey(File source) {
+		return source.getAbsolutePath() + "|" + source.length() + "|" + source.lastModified();
+	}
+
+	/**
+	 * Makes a SHA-256 digest
+	 * 
+	 * @return a new digest
+	 */
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Writes a hash as a hex string
+	 * 
+	 * @param hash the hash
+	 * @return the hex string
+	 */
+	private static String toHex(byte[] hash) {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : hash) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * Copies an image into an opaque RGB image, as required to write JPEG files.
+	 * 
+	 * @param image the image to copy
+	 * @return the image itself if it is already RGB, otherwise an RGB copy
+	 */
+	private static BufferedImage toRGB(BufferedImage image) {
+		if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+			return image;
+		}
+		BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = rgb.createGraphics();
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return rgb;
+	}
+
+}
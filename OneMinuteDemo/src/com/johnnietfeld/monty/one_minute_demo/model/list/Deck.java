@@ -0,0 +1,279 @@
+package com.johnnietfeld.monty.one_minute_demo.model.list;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The image ids of one lap of an ImageList, in the order they are dealt. Kept
+ * either in an int array on the heap, or in a memory-mapped permutation file so
+ * that decks of millions of images live off-heap. A deck is only written while
+ * it is being shuffled, before its lap is shared. Mapped decks are shuffled
+ * again for a later lap once their lap has been dealt, and each write gives the
+ * deck a new version, so that a reader that has not claimed the image it reads
+ * can tell whether the deck was written under it.
+ * 
+ * @author Melody Griesen
+ *
+ */
+abstract class Deck {
+
+	/** Most ids a mapped deck can hold, since one mapping is at most 2 GB */
+	static final int MAX_MAPPED_SIZE = Integer.MAX_VALUE / Integer.BYTES;
+	/** Source of versions, unique among every deck */
+	private static final AtomicLong WRITES = new AtomicLong();
+	/** Number of permutation files mapped so far */
+	private static final AtomicInteger MAPPINGS = new AtomicInteger();
+
+	/** Version of the current contents, or -1 while they are being written */
+	private volatile long version = 0;
+
+	/**
+	 * Makes a deck on the heap, holding ids 0 to size - 1 in order
+	 * 
+	 * @param size the number of ids
+	 * @return the deck
+	 */
+	static Deck inHeap(int size) {
+		Deck deck = new HeapDeck(new int[size]);
+		deck.reset();
+		return deck;
+	}
+
+	/**
+	 * Makes a deck in a new memory-mapped permutation file, holding ids 0 to size -
+	 * 1 in order
+	 * 
+	 * @param size      the number of ids
+	 * @param directory the directory to make the permutation file in
+	 * @return the deck
+	 * @throws IllegalArgumentException if size is more than MAX_MAPPED_SIZE
+	 * @throws IllegalStateException    if the permutation file could not be made
+	 */
+	static Deck mapped(int size, File directory) {
+		Deck deck = new MappedDeck(size, directory);
+		deck.reset();
+		return deck;
+	}
+
+	/**
+	 * Gets how many permutation files have been mapped, by every deck
+	 * 
+	 * @return the number of mapped files
+	 */
+	static int getMappedCount() {
+		return MAPPINGS.get();
+	}
+
+	/**
+	 * Marks this deck as being written, so that readers checking its version see
+	 * that it changed. Must be called before writing a deck that has been shared.
+	 */
+	void beginWrite() {
+		version = -1;
+		// Keep the writes that follow from being seen before the mark
+		VarHandle.fullFence();
+	}
+
+	/**
+	 * Marks this deck as written, giving its contents a new version
+	 * 
+	 * @return the new version
+	 */
+	long endWrite() {
+		long written = WRITES.incrementAndGet();
+		version = written;
+		return written;
+	}
+
+	/**
+	 * Tells whether this deck still holds the contents of a version, after ids
+	 * were read from it without claiming them
+	 * 
+	 * @param expected the version the ids were expected to come from
+	 * @return true if the ids read are from that version, else false
+	 */
+	boolean holds(long expected) {
+		// Keep the reads before this check from being made after it
+		VarHandle.loadLoadFence();
+		return version == expected;
+	}
+
+	/**
+	 * Puts ids 0 to size - 1 back in order
+	 */
+	void reset() {
+		for (int id = 0; id < size(); ++id) {
+			set(id, id);
+		}
+	}
+
+	/**
+	 * Gets the number of ids in this deck
+	 * 
+	 * @return the size of the deck
+	 */
+	abstract int size();
+
+	/**
+	 * Gets the id at a position of this deck
+	 * 
+	 * @param position the position, from 0 to size() - 1
+	 * @return the image id
+	 */
+	abstract int get(int position);
+
+	/**
+	 * Sets the id at a position of this deck
+	 * 
+	 * @param position the position, from 0 to size() - 1
+	 * @param id       the image id
+	 */
+	abstract void set(int position, int id);
+
+	/**
+	 * Swaps the ids at two positions of this deck
+	 * 
+	 * @param i a position
+	 * @param j another position
+	 */
+	abstract void swap(int i, int j);
+
+	/**
+	 * Copies the ids of another deck into this one, to shuffle into a new lap
+	 * 
+	 * @param other a deck of the same size, stored the same way
+	 */
+	abstract void copyFrom(Deck other);
+
+	/**
+	 * Deck held in an int array
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	private static final class HeapDeck extends Deck {
+		/** The ids */
+		private final int[] ids;
+
+		/**
+		 * Creates a deck of the given ids
+		 * 
+		 * @param ids the ids, which become owned by the deck
+		 */
+		private HeapDeck(int[] ids) {
+			this.ids = ids;
+		}
+
+		@Override
+		int size() {
+			return ids.length;
+		}
+
+		@Override
+		int get(int position) {
+			return ids[position];
+		}
+
+		@Override
+		void set(int position, int id) {
+			ids[position] = id;
+		}
+
+		@Override
+		void swap(int i, int j) {
+			int swap = ids[i];
+			ids[i] = ids[j];
+			ids[j] = swap;
+		}
+
+		@Override
+		void copyFrom(Deck other) {
+			System.arraycopy(((HeapDeck) other).ids, 0, ids, 0, ids.length);
+		}
+	}
+
+	/**
+	 * Deck held in a memory-mapped permutation file. The file is deleted as soon
+	 * as it is mapped where the platform allows it, and otherwise when the JVM
+	 * exits; the mapping itself is released once the deck is garbage collected, so
+	 * decks are reused rather than mapped anew.
+	 * 
+	 * @author Melody Griesen
+	 *
+	 */
+	private static final class MappedDeck extends Deck {
+		/** The ids, a view of the mapped file */
+		private final IntBuffer ids;
+
+		/**
+		 * Maps a new permutation file of the given size, with unspecified contents
+		 * 
+		 * @param size      the number of ids
+		 * @param directory the directory to make the file in
+		 * @throws IllegalArgumentException if size is more than MAX_MAPPED_SIZE
+		 * @throws IllegalStateException    if the file could not be made or mapped
+		 */
+		private MappedDeck(int size, File directory) {
+			if (size > MAX_MAPPED_SIZE) {
+				throw new IllegalArgumentException(
+						"Cannot map a deck of " + size + " images, at most " + MAX_MAPPED_SIZE + " fit in one file");
+			}
+			File file = null;
+			try {
+				file = File.createTempFile("omg-deck", ".perm", directory);
+				try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+					long bytes = (long) size * Integer.BYTES;
+					raf.setLength(bytes);
+					ids = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes)
+							.order(ByteOrder.nativeOrder()).asIntBuffer();
+				}
+			} catch (IOException e) {
+				if (file != null) {
+					file.delete();
+				}
+				throw new IllegalStateException("Could not map a deck file in " + directory.getAbsolutePath(), e);
+			}
+			MAPPINGS.incrementAndGet();
+			// The mapping stays valid once the file is gone
+			if (!file.delete()) {
+				file.deleteOnExit();
+			}
+		}
+
+		@Override
+		int size() {
+			return ids.capacity();
+		}
+
+		@Override
+		int get(int position) {
+			return ids.get(position);
+		}
+
+		@Override
+		void set(int position, int id) {
+			ids.put(position, id);
+		}
+
+		@Override
+		void swap(int i, int j) {
+			int swap = ids.get(i);
+			ids.put(i, ids.get(j));
+			ids.put(j, swap);
+		}
+
+		@Override
+		void copyFrom(Deck other) {
+			// Bulk copy between the two mappings, without passing through the heap
+			ids.duplicate().clear().put(((MappedDeck) other).ids.duplicate().clear());
+		}
+	}
+
+}
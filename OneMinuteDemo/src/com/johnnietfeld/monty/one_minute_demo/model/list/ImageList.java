@@ -1,60 +1,205 @@
 package com.johnnietfeld.monty.one_minute_demo.model.list;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Random;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
-
+import com.johnnietfeld.monty.one_minute_demo.model.data.ImageTable;
+
+/**
+ * Deals images in a random order, optionally cycling through them again once
+ * every image has been dealt. Safe for any number of threads to deal from at
+ * once, without locks: every image dealt is claimed by taking a ticket from an
+ * atomic counter, and ticket t is the image at position t % size of lap
+ * t / size. Laps are immutable orders of the images, linked one after another
+ * as they are first needed, so no image is ever lost or dealt twice.
+ * 
+ * Laps hold the int ids of images in the game's ImageTable, not the images
+ * themselves, so each lap costs four bytes per image. An image is only made a
+ * ClassifiedImage when it is dealt. Games of at least MAPPED_DECK_IMAGES images
+ * keep their laps in memory-mapped permutation files instead of on the heap, so
+ * shuffling and dealing from archives of millions of images uses constant heap
+ * per image dealt. Only two files are ever mapped, both when the ImageList is
+ * made, and randomized laps take turns in them: a lap is shuffled into a file
+ * once every image of the lap that last used it has been dealt.
+ * 
+ * Every ImageList has its own seed. The first lap shuffles the images from
+ * their table order, and each randomized lap after it shuffles the order of
+ * the lap before, with swaps decided only by the seed and the lap's number. A
+ * lap's order therefore follows from the seed and from which earlier laps were
+ * randomized. Two ImageLists of the same images with the same seed, randomizing
+ * the same laps, deal the same images in the same order, however many threads
+ * deal from them, so a game can be replayed exactly.
+ * 
+ * @author Melody
+ *
+ */
 public class ImageList implements Iterable<ClassifiedImage> {
 
-	/** Internal LinkedList of Images, used to store them in randomized order */
-	LinkedList<ClassifiedImage> images;
+	/** Number of images in each lap */
+	private int size;
+
+	/** Number of tickets claimed, which is the number of images dealt so far */
+	private AtomicLong tickets = new AtomicLong();
+
+	/**
+	 * A lap at or before the lap of the next ticket. Laps before it may be
+	 * discarded.
+	 */
+	private AtomicReference<Lap> current = new AtomicReference<Lap>();
 
 	/**
 	 * Whether this ImageList should cycle images instead of discarding used ones
 	 */
-	private boolean cycle = false;
+	private volatile boolean cycle = false;
 
 	/**
 	 * Whether this ImageList should randomize cycled images instead of presenting
 	 * them in the same order
 	 */
-	private boolean randomizeCycle = false;
+	private volatile boolean randomizeCycle = false;
 
-	/** LinkedList used to store Images that have already been used */
-	LinkedList<ClassifiedImage> used;
+	/** The images of this ImageList, by id */
+	private ImageTable table;
+
+	/** Directory laps are mapped into, or null to keep laps on the heap */
+	private File deckDirectory;
+
+	/**
+	 * The two mapped decks laps take turns in, both mapped when the first lap is
+	 * dealt, so that deciding a later lap never has to map a file after its
+	 * tickets were claimed. Also locked while a lap is linked, so that only one
+	 * thread shuffles it.
+	 */
+	private final Deck[] decks = new Deck[2];
 
-	/** Random generator for shuffling of List elements */
-	static Random rand = new Random();
+	/** The last lap linked in each mapped deck, or null if none is */
+	private final Lap[] deckLaps = new Lap[2];
+
+	/** Seed that the order of every lap is derived from */
+	private volatile long seed;
+
+	/** Odd constant that spreads lap numbers across the seed space */
+	private static final long LAP_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/** Source of seeds for ImageLists that are not given one */
+	private static final SplittableRandom SEEDS = new SplittableRandom();
+
+	/**
+	 * Fewest images for laps to be kept in mapped permutation files by default, set
+	 * with the omg.mappedDeckImages system property. A million by default.
+	 */
+	public static final int MAPPED_DECK_IMAGES = Integer.getInteger("omg.mappedDeckImages", 1 << 20);
+
+	/**
+	 * Directory mapped permutation files are made in by default, set with the
+	 * omg.deckDirectory system property. The temporary directory by default.
+	 */
+	public static final File DECK_DIRECTORY = new File(
+			System.getProperty("omg.deckDirectory", System.getProperty("java.io.tmpdir")));
 
 	/**
-	 * Creates an ImageList from a list of Images. This will not affect the provided
-	 * List.
+	 * Creates an ImageList from a list of Images, with a seed of its own. This will
+	 * not affect the provided List.
 	 * 
 	 * @param images List of Images to create this class from.
 	 * @throws IllegalArgumentException if the provided List is empty
 	 * @throws NullPointerException     if the provided List is null
 	 */
 	public ImageList(List<ClassifiedImage> images) {
-		// Copy the provided list to prevent modification of the source list
-		ArrayList<ClassifiedImage> copy = new ArrayList<ClassifiedImage>(images);
-		// Assign the images into this ImageList's internal list
-		setImages(copy);
-		// Initialize the used images list
-		used = new LinkedList<ClassifiedImage>();
+		this(images, newSeed());
+	}
+
+	/**
+	 * Creates an ImageList from a list of Images, shuffled from the given seed.
+	 * This will not affect the provided List.
+	 * 
+	 * @param images List of Images to create this class from.
+	 * @param seed   the seed the order of every lap is derived from
+	 * @throws IllegalArgumentException if the provided List is empty
+	 * @throws NullPointerException     if the provided List is null
+	 */
+	public ImageList(List<ClassifiedImage> images, long seed) {
+		// Assign the images into this ImageList's table. Copying into a table
+		// prevents modification of the source list
+		this(ImageTable.of(images), seed);
+	}
+
+	/**
+	 * Creates an ImageList of every image in an ImageTable, shuffled from the given
+	 * seed. The table must not have images added to it afterwards.
+	 * 
+	 * @param table the ImageTable of the images to deal
+	 * @param seed  the seed the order of every lap is derived from
+	 * @throws IllegalArgumentException if the provided table is empty
+	 * @throws NullPointerException     if the provided table is null
+	 */
+	public ImageList(ImageTable table, long seed) {
+		this(table, seed, table.size() >= MAPPED_DECK_IMAGES ? DECK_DIRECTORY : null);
+	}
+
+	/**
+	 * Creates an ImageList of every image in an ImageTable, shuffled from the given
+	 * seed, keeping its laps in memory-mapped permutation files in the given
+	 * directory. The table must not have images added to it afterwards.
+	 * 
+	 * @param table         the ImageTable of the images to deal
+	 * @param seed          the seed the order of every lap is derived from
+	 * @param deckDirectory the directory to map laps into, or null to keep laps on
+	 *                      the heap
+	 * @throws IllegalArgumentException if the provided table is empty, or too
+	 *                                  large to map when deckDirectory is given
+	 * @throws IllegalStateException    if a permutation file could not be made
+	 * @throws NullPointerException     if the provided table is null
+	 */
+	public ImageList(ImageTable table, long seed, File deckDirectory) {
+		this.seed = seed;
+		this.deckDirectory = deckDirectory;
+		setImages(table);
+	}
 
+	/**
+	 * Makes a seed for an ImageList that is not given one
+	 * 
+	 * @return a new seed
+	 */
+	public static long newSeed() {
+		// SplittableRandom is not thread-safe, and is only drawn from once per
+		// ImageList
+		synchronized (SEEDS) {
+			return SEEDS.nextLong();
+		}
 	}
 
 	/**
-	 * Package utility function for testing randomization.
+	 * Gets the seed the order of every lap is derived from, so that the same order
+	 * can be dealt again
 	 * 
-	 * @param seed long seed to use
+	 * @return the seed of this ImageList
 	 */
-	static void setRandSeed(long seed) {
-		rand.setSeed(seed);
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Sets the seed the order of every lap is derived from, and starts dealing
+	 * again from the first lap shuffled with it. Must not be called while other
+	 * threads are dealing.
+	 * 
+	 * @param seed the seed to use
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+		deal();
 	}
 
 	/**
@@ -69,7 +214,8 @@ public class ImageList implements Iterable<ClassifiedImage> {
 
 	/**
 	 * Sets whether or not the list of images is scrambled between cycles. Does
-	 * nothing if cycles() is false;
+	 * nothing if cycles() is false. Laps whose order has already been decided,
+	 * because they were peeked at, keep their order.
 	 * 
 	 * @param assignment true for randomize image order on cycle reset, else false
 	 */
@@ -97,28 +243,201 @@ public class ImageList implements Iterable<ClassifiedImage> {
 	}
 
 	/**
-	 * Transfers all elements of the provided list into this class' images list, in
-	 * a random order.
+	 * Sets the table of this class, and shuffles its image ids into the first lap.
 	 * 
-	 * @param provided a List to transfer Images from
-	 * @throws IllegalArgumentException if the provided List is empty
-	 * @throws NullPointerException     if the provided List is null
+	 * @param provided an ImageTable of the images
+	 * @throws IllegalArgumentException if the provided table is empty
+	 * @throws NullPointerException     if the provided table is null
 	 */
-	private void setImages(List<ClassifiedImage> provided) {
+	private void setImages(ImageTable provided) {
 
-		if (provided.isEmpty()) {
+		if (provided.size() == 0) {
 			throw new IllegalArgumentException();
 		}
 
-		images = new LinkedList<ClassifiedImage>();
+		table = provided;
+		size = provided.size();
+		deal();
+
+	}
+
+	/**
+	 * Gets the ImageTable this ImageList deals images from
+	 * 
+	 * @return the table field
+	 */
+	public ImageTable getTable() {
+		return table;
+	}
+
+	/**
+	 * Tells whether the laps of this ImageList are kept in memory-mapped
+	 * permutation files rather than on the heap.
+	 * 
+	 * @return true if laps are mapped, else false
+	 */
+	public boolean isMapped() {
+		return deckDirectory != null;
+	}
+
+	/**
+	 * Shuffles the image ids into the first lap and starts dealing from it. Maps
+	 * both decks the first time, and reuses them afterwards.
+	 * 
+	 * @throws IllegalStateException if a permutation file could not be made
+	 */
+	private void deal() {
+		synchronized (decks) {
+			Deck order;
+			int slot = -1;
+			if (deckDirectory == null) {
+				order = Deck.inHeap(size);
+			} else {
+				if (decks[0] == null) {
+					decks[0] = Deck.mapped(size, deckDirectory);
+					decks[1] = Deck.mapped(size, deckDirectory);
+				}
+				order = decks[0];
+				slot = 0;
+			}
+			order.beginWrite();
+			order.reset();
+			shuffle(order, 0);
+			Lap first = new Lap(0, order, order.endWrite(), slot);
+			if (slot >= 0) {
+				deckLaps[0] = first;
+				deckLaps[1] = null;
+			}
+			tickets.set(0);
+			current.set(first);
+		}
+	}
+
+	/**
+	 * Shuffles a deck in place with a Fisher-Yates shuffle. Runs in linear time.
+	 * The swaps depend only on the seed and the lap number, without sharing a
+	 * generator, so shuffling the same order for the same lap always reaches the
+	 * same result.
+	 * 
+	 * @param cards the deck to shuffle
+	 * @param lap   the number of the lap being shuffled
+	 */
+	private void shuffle(Deck cards, long lap) {
+		SplittableRandom random = new SplittableRandom(seed ^ (lap * LAP_GAMMA));
+		for (int i = cards.size() - 1; i > 0; --i) {
+			// Pick a random index from the unshuffled front of the deck, and swap it
+			// into the shuffled back of the deck
+			cards.swap(i, random.nextInt(i + 1));
+		}
+	}
+
+	/**
+	 * Gets the lap after a lap, deciding its order if no thread has yet. Only one
+	 * thread decides each lap, and the others wait for it. A randomized mapped lap
+	 * is shuffled into the deck the previous lap is not using, once every image of
+	 * the last lap in that deck has been dealt. Threads wait for that without
+	 * holding the lock, so that threads still dealing that lap can walk to it.
+	 * 
+	 * @param lap  the lap before the one to get
+	 * @param wait whether to wait for the images of an earlier lap to be dealt
+	 * @return the following lap, or null if it would have to wait and wait is
+	 *         false
+	 */
+	private Lap following(Lap lap, boolean wait) {
+		while (true) {
+			Lap next = lap.next.get();
+			if (next != null) {
+				return next;
+			}
+			synchronized (decks) {
+				// Another thread may have linked it while this one waited for the lock
+				next = lap.next.get();
+				if (next == null) {
+					next = decide(lap);
+				}
+				if (next != null) {
+					return next;
+				}
+			}
+			// Threads that claimed the last images of the other deck's lap are about to
+			// read them
+			if (!wait) {
+				return null;
+			}
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Decides and links the lap after a lap. Must be called holding the lock on
+	 * the decks.
+	 * 
+	 * @param lap the lap before the one to decide, which has no lap after it yet
+	 * @return the following lap, or null if its mapped deck still holds a lap that
+	 *         is being dealt
+	 */
+	private Lap decide(Lap lap) {
+		Lap next;
+		if (!randomizeCycle) {
+			next = new Lap(lap.index + 1, lap.order, lap.version, lap.slot);
+		} else {
+			// Shuffle in a new heap deck, or the other mapped deck, never the one the
+			// previous lap may still be dealing from
+			int slot = lap.slot < 0 ? -1 : 1 - lap.slot;
+			Deck order;
+			if (slot < 0) {
+				order = Deck.inHeap(size);
+			} else {
+				Lap last = deckLaps[slot];
+				if (last != null && last.dealt.get() < size) {
+					return null;
+				}
+				order = decks[slot];
+			}
+			order.beginWrite();
+			order.copyFrom(lap.order);
+			shuffle(order, lap.index + 1);
+			next = new Lap(lap.index + 1, order, order.endWrite(), slot);
+		}
+		if (next.slot >= 0) {
+			deckLaps[next.slot] = next;
+		}
+		lap.next.set(next);
+		return next;
+	}
 
-		for (int i = 0; i < provided.size() + images.size(); ++i) {
-			// Calculate a random index to remove from
-			int removeIndex = rand.nextInt(provided.size());
-			// Remove the image from the provided List, and add it to the internal one.
-			images.add(provided.remove(removeIndex));
+	/**
+	 * Finds the lap a ticket falls in, walking forward from a lap at or before it.
+	 * 
+	 * @param start  a lap at or before the ticket's lap
+	 * @param ticket the ticket
+	 * @param wait   whether to wait for the images of an earlier lap to be dealt
+	 *               before deciding a lap
+	 * @return the lap the ticket falls in, or null if it would have to wait and
+	 *         wait is false
+	 */
+	private Lap lapOf(Lap start, long ticket, boolean wait) {
+		long index = ticket / size;
+		Lap lap = start;
+		while (lap != null && lap.index < index) {
+			lap = following(lap, wait);
 		}
+		return lap;
+	}
 
+	/**
+	 * Moves the current lap forward to the lap of a claimed ticket, so that
+	 * earlier laps can be discarded. Every ticket claimed later falls in that lap
+	 * or after it.
+	 * 
+	 * @param lap the lap of a claimed ticket
+	 */
+	private void advance(Lap lap) {
+		// Unless another thread already moved it further
+		Lap seen = current.get();
+		while (seen.index < lap.index && !current.compareAndSet(seen, lap)) {
+			seen = current.get();
+		}
 	}
 
 	/**
@@ -127,16 +446,30 @@ public class ImageList implements Iterable<ClassifiedImage> {
 	 * @return the total amount of images in this ImageList
 	 */
 	public int size() {
-		return images.size() + used.size();
+		return size;
 	}
 
 	/**
-	 * Gets how many images are left in the images list
+	 * Gets how many images are left in the current lap of the images list
 	 * 
-	 * @return the size of the internal images aray
+	 * @return the number of images in the lap not yet dealt
 	 */
 	public int remaining() {
-		return images.size();
+		return size - dealtInLap(tickets.get());
+	}
+
+	/**
+	 * Gets how many images of the lap the last dealt image was in have been dealt.
+	 * Before any image is dealt, that is none of the first lap.
+	 * 
+	 * @param dealt the number of images dealt in total
+	 * @return the number of images dealt in the lap, from 0 to size
+	 */
+	private int dealtInLap(long dealt) {
+		if (dealt == 0) {
+			return 0;
+		}
+		return (int) ((dealt - 1) % size) + 1;
 	}
 
 	/**
@@ -149,58 +482,170 @@ public class ImageList implements Iterable<ClassifiedImage> {
 	 *                               enabled
 	 */
 	public ClassifiedImage next() {
+		return next(1).get(0);
+	}
 
-		// If we're out of images to show
-		if (remaining() == 0) {
-			// And if we're allowed to cycle images
-			if (cycle) {
-				// If we're randomizing between each cycle
-				if (randomizeCycle) {
-					// Use the randomize function. This will transfer all elements of the used list
-					// to the images list in a random order.
-					setImages(used);
-				} else { // If we're not randomizing between each cycle
-					// Discard the old images list, assign the images list to the used list, and
-					// make a new used list.
-					images = used;
-					used = new LinkedList<ClassifiedImage>();
-				}
-			} else { // If we're out of images and not allowed to cycle, we cannot continue
-				throw new IllegalStateException("Ran out of pictures to display");
-			}
+	/**
+	 * Retrieves the next several Images at once, as if next() were called that
+	 * many times. Retrieves none if there are not enough. The Images are claimed
+	 * together, so no other thread's Images come between them.
+	 * 
+	 * @param count the number of Images to retrieve
+	 * @return the Images, in the order next() would have returned them
+	 * @throws IllegalArgumentException if count is negative
+	 * @throws IllegalStateException    if fewer than count Images remain and cycle
+	 *                                  is not enabled
+	 */
+	public List<ClassifiedImage> next(int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Cannot retrieve a negative number of images");
 		}
 
-		// Get the front image from the queue
-		ClassifiedImage front = images.poll();
+		// Read the current lap before claiming, so it is at or before the claimed lap
+		Lap lap = current.get();
 
-		// Add this image to the used images list
-		used.add(front);
+		// Claim tickets for the images. Without cycling, only the first lap is dealt.
+		long first;
+		do {
+			first = tickets.get();
+			if (!cycle && first + count > size) {
+				throw new IllegalStateException("Ran out of pictures to display");
+			}
+		} while (!tickets.compareAndSet(first, first + count));
+
+		// Deal the image of each ticket
+		ArrayList<ClassifiedImage> taken = new ArrayList<ClassifiedImage>(count);
+		for (long ticket = first; ticket < first + count; ++ticket) {
+			lap = lapOf(lap, ticket, true);
+			int id = lap.order.get((int) (ticket % size));
+			// Once every image of a lap is dealt, its deck may be shuffled again. Count
+			// the image as soon as its id is read, so nothing after can stop the count.
+			lap.dealt.incrementAndGet();
+			taken.add(table.get(id));
+		}
+		advance(lap);
+		return taken;
+	}
 
-		// Return the retrieved Image
-		return front;
+	/**
+	 * Looks at the Images that next() will return, without retrieving them. If
+	 * this ImageList cycles, looks past the end of the current lap into the laps
+	 * after it, deciding their order now when they are randomized, so that they
+	 * are dealt in the order seen. Other threads may deal some of the Images
+	 * before this thread does. Randomized mapped laps can only be looked at one
+	 * lap past the lap being dealt, since later laps reuse its deck.
+	 * 
+	 * @param count the most Images to look at
+	 * @return up to count upcoming Images in order, fewer if the list does not
+	 *         cycle and has fewer remaining, or the laps after them cannot be
+	 *         decided yet
+	 * @throws IllegalArgumentException if count is negative
+	 */
+	public List<ClassifiedImage> peek(int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Cannot peek at a negative number of images");
+		}
+		Lap lap = current.get();
+		long first = tickets.get();
+		long end = cycle ? first + count : Math.min(first + count, size);
+
+		ArrayList<ClassifiedImage> upcoming = new ArrayList<ClassifiedImage>((int) Math.max(0, end - first));
+		for (long ticket = first; ticket < end; ++ticket) {
+			// Stop at a lap that cannot be decided yet, or whose deck was reused since
+			lap = lapOf(lap, ticket, false);
+			int id = lap == null ? -1 : lap.peek((int) (ticket % size));
+			if (id < 0) {
+				break;
+			}
+			upcoming.add(table.get(id));
+		}
+		return Collections.unmodifiableList(upcoming);
 	}
 
 	/**
-	 * Allows iteration over the Images in this ImageList without modification.
+	 * Allows iteration over the remaining Images in the current lap of this
+	 * ImageList without modification. The iterator fails if a mapped deck is
+	 * reused for a later lap while iterating.
 	 * 
 	 * @return an Iterator over the ImageList for each ClassifiedImage in the List
 	 */
 	@Override
 	public Iterator<ClassifiedImage> iterator() {
+		Lap start = current.get();
+		long dealt = tickets.get();
+		final int position = dealtInLap(dealt);
+		// The lap of the last image dealt, or the first lap before any are
+		final Lap lap = lapOf(start, dealt == 0 ? 0 : dealt - 1, true);
 		return new Iterator<ClassifiedImage>() {
 
-			int idx = 0;
+			int idx = position;
 
 			@Override
 			public boolean hasNext() {
-				return idx < images.size();
+				return idx < size;
 			}
 
 			@Override
 			public ClassifiedImage next() {
-				return images.get(idx++);
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				int id = lap.peek(idx++);
+				if (id < 0) {
+					throw new ConcurrentModificationException("The lap was reshuffled while iterating");
+				}
+				return table.get(id);
 			}
 		};
 	}
 
+	/**
+	 * One pass through every image, in a fixed order. Never changes once made,
+	 * though its deck may be reused once all of its images have been dealt.
+	 * 
+	 * @author Melody
+	 *
+	 */
+	private static final class Lap {
+		/** Number of this lap, starting from 0 */
+		private final long index;
+		/** Ids of the images, in the order they are dealt during this lap */
+		private final Deck order;
+		/** Version of the deck that holds this lap's order */
+		private final long version;
+		/** Which mapped deck holds this lap's order, or -1 for a heap deck */
+		private final int slot;
+		/** Number of this lap's images that have been dealt */
+		private final AtomicInteger dealt = new AtomicInteger();
+		/** The lap after this one, or null until it is first needed */
+		private final AtomicReference<Lap> next = new AtomicReference<Lap>();
+
+		/**
+		 * Creates a lap
+		 * 
+		 * @param index   the number of the lap
+		 * @param order   the ids of the images in the order they are dealt, which must
+		 *                not change until they are all dealt
+		 * @param version the version of the deck holding the order
+		 * @param slot    which mapped deck holds the order, or -1 for a heap deck
+		 */
+		private Lap(long index, Deck order, long version, int slot) {
+			this.index = index;
+			this.order = order;
+			this.version = version;
+			this.slot = slot;
+		}
+
+		/**
+		 * Reads the id at a position of this lap without claiming it
+		 * 
+		 * @param position the position, from 0 to size - 1
+		 * @return the image id, or -1 if the deck has been reused for a later lap
+		 */
+		private int peek(int position) {
+			int id = order.get(position);
+			return order.holds(version) ? id : -1;
+		}
+	}
+
 }
@@ -1,9 +1,13 @@
 package com.johnnietfeld.monty.one_minute_demo.model.manager;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import com.johnnietfeld.monty.one_minute_demo.model.data.Category;
+import com.johnnietfeld.monty.one_minute_demo.model.data.CategoryIndex;
 import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
+import com.johnnietfeld.monty.one_minute_demo.model.data.ImageTable;
+import com.johnnietfeld.monty.one_minute_demo.model.event.ImageClassifyEvent;
 import com.johnnietfeld.monty.one_minute_demo.model.list.ImageList;
 
 public class Game {
@@ -16,6 +20,12 @@ public class Game {
 	private ImageList list;
 	/** List of Categories this Game uses */
 	private ArrayList<Category> categories;
+	/** Index the Categories of this Game's images are interned in */
+	private CategoryIndex categoryIndex;
+	/** Number of images correctly placed, by Category ordinal */
+	private int[] correctCounts;
+	/** Number of images incorrectly placed, by Category ordinal */
+	private int[] incorrectCounts;
 	/** The user's current score */
 	private int score;
 	/** Amount to increase the score by upon a correct image classification */
@@ -323,6 +333,26 @@ public class Game {
 		list.setRandomizeCycle(assignment);
 	}
 
+	/**
+	 * Wrapper of ImageList's seed setter. Shuffles the images again from the given
+	 * seed and starts over from the first of them, so that a game can be replayed
+	 * in exactly the same order.
+	 * 
+	 * @param seed the seed the image order is derived from
+	 */
+	public void setSeed(long seed) {
+		list.setSeed(seed);
+	}
+
+	/**
+	 * Wrapper of ImageList's seed getter.
+	 * 
+	 * @return the seed the image order of this Game is derived from
+	 */
+	public long getSeed() {
+		return list.getSeed();
+	}
+
 	/**
 	 * Returns whether this Game cycles images after each one has been presented.
 	 * 
@@ -367,7 +397,9 @@ public class Game {
 
 	/**
 	 * Scans this Game's ImageList for all Categories expressed by ClassifiedImages,
-	 * and compiles them into this Game's Categories list.
+	 * and compiles them into this Game's Categories list, in order of ordinal.
+	 * Reads only the Category ordinals of the ImageList's table, without making a
+	 * ClassifiedImage for any image.
 	 * 
 	 * @throws IllegalArgumentException if the ImageList's ClassifiedImages contain
 	 *                                  less than the minimum or more than the
@@ -375,16 +407,25 @@ public class Game {
 	 */
 	private void setCategories() {
 
-		// Initialize a new categories ArrayList
+		// Use the index the images were interned in
+		ImageTable table = list.getTable();
+		categoryIndex = table.getCategoryIndex();
+
+		// Search through this Game's ImageList to mark every Category in use
+		boolean[] used = new boolean[categoryIndex.size()];
+		for (int id = 0; id < table.size(); ++id) {
+			used[table.getCategoryOrdinal(id)] = true;
+		}
+
+		// Initialize a new categories ArrayList from the marked Categories
 		categories = new ArrayList<Category>();
-		// Search through this Game's ImageList to extract all unique Categories
-		for (ClassifiedImage image : list) {
-			// If the Categories List does not contain this image's Category,
-			if (!categories.contains(image.getCategory())) {
-				// add it to the Categories List
-				categories.add(image.getCategory());
+		for (int ordinal = 0; ordinal < used.length; ++ordinal) {
+			if (used[ordinal]) {
+				categories.add(categoryIndex.get(ordinal));
 			}
 		}
+		correctCounts = new int[used.length];
+		incorrectCounts = new int[used.length];
 
 		// Error checking
 		// Ensure that number of categories is between valid min and max
@@ -406,6 +447,48 @@ public class Game {
 		score += correct ? correctIncrement : incorrectDecrement;
 	}
 
+	/**
+	 * Counts an image placed correctly or incorrectly against its Category
+	 * 
+	 * @param category the Category of the placed image
+	 * @param correct  whether the image was placed correctly
+	 */
+	private void countPlacement(Category category, boolean correct) {
+		int ordinal = categoryIndex.ordinalOf(category);
+		if (ordinal < 0 || ordinal >= correctCounts.length) {
+			return;
+		}
+		if (correct) {
+			++correctCounts[ordinal];
+		} else {
+			++incorrectCounts[ordinal];
+		}
+	}
+
+	/**
+	 * Gets how many images of a Category have been placed correctly
+	 * 
+	 * @param category the Category of the images
+	 * @return the number of correct placements, 0 if the Category is not in this
+	 *         Game
+	 */
+	public int getCorrectCount(Category category) {
+		int ordinal = categoryIndex.ordinalOf(category);
+		return ordinal < 0 || ordinal >= correctCounts.length ? 0 : correctCounts[ordinal];
+	}
+
+	/**
+	 * Gets how many images of a Category have been placed incorrectly
+	 * 
+	 * @param category the Category of the images
+	 * @return the number of incorrect placements, 0 if the Category is not in this
+	 *         Game
+	 */
+	public int getIncorrectCount(Category category) {
+		int ordinal = categoryIndex.ordinalOf(category);
+		return ordinal < 0 || ordinal >= incorrectCounts.length ? 0 : incorrectCounts[ordinal];
+	}
+
 	/**
 	 * Scores an image categorized by the user.
 	 * 
@@ -414,8 +497,12 @@ public class Game {
 	 * @return the new score
 	 */
 	public int scoreImage(ClassifiedImage image, Category placement) {
+		ImageClassifyEvent event = new ImageClassifyEvent();
+		event.begin();
 		boolean correct = image.scoreCategory(placement);
 		changeScore(correct);
+		countPlacement(image.getCategory(), correct);
+		event.finish(image, placement == null ? null : placement.getName(), correct, getScore());
 		return getScore();
 	}
 
@@ -432,20 +519,49 @@ public class Game {
 
 	/**
 	 * Retrieves the next image to be shown to the user, and loads its BufferedImage
-	 * into memory.
+	 * into memory at full size, outside of any ImageLifecycle.
 	 * 
 	 * @return a ClassifiedImage from the sequence of images with a loaded image
 	 * @throws IllegalStateException    if this Game is out of images and not set to
 	 *                                  recycle images
 	 * @throws IllegalArgumentException if the next image could not be loaded into
 	 *                                  memory for some reason
+	 * @deprecated decodes every image at full size and leaves it loaded until the
+	 *             caller flushes it. Acquire images through an ImageLifecycle, or an
+	 *             ImageBuffer, which load them at their display size and release
+	 *             them once they are no longer shown.
 	 */
+	@Deprecated
 	public ClassifiedImage nextImage() {
-		ClassifiedImage next = list.next();
+		ClassifiedImage next = drawImage();
 		next.loadImage();
 		return next;
 	}
 
+	/**
+	 * Retrieves the next image to be shown to the user without loading it. Safe to
+	 * call from multiple threads, so that loader threads can draw images in order
+	 * and decode them in parallel.
+	 * 
+	 * @return the next ClassifiedImage from the sequence of images
+	 * @throws IllegalStateException if this Game is out of images and not set to
+	 *                               recycle images
+	 */
+	ClassifiedImage drawImage() {
+		return list.next();
+	}
+
+	/**
+	 * Looks at the images that will be drawn next, without drawing them, so that
+	 * they can be loaded ahead of time.
+	 * 
+	 * @param count the most images to look at
+	 * @return up to count upcoming images, in the order they will be drawn
+	 */
+	public List<ClassifiedImage> peekImages(int count) {
+		return list.peek(count);
+	}
+
 	/**
 	 * Scores the image provided and retrieves the next image to be shown.
 	 * 
@@ -459,7 +575,10 @@ public class Game {
 	 *                                  recycle images
 	 * @throws IllegalArgumentException if the next image could not be loaded into
 	 *                                  memory for some reason
+	 * @deprecated loads the next image through nextImage(). Score the image with
+	 *             scoreImage() and take the next one from an ImageBuffer instead.
 	 */
+	@Deprecated
 	public ClassifiedImage nextStep(ClassifiedImage image, Category placement) {
 		scoreImage(image, placement);
 		image.flushLoadedImage();
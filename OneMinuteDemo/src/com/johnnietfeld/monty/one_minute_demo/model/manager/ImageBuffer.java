@@ -2,32 +2,148 @@ package com.johnnietfeld.monty.one_minute_demo.model.manager;
 
 import java.awt.Dimension;
 import java.awt.Point;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
+import com.johnnietfeld.monty.one_minute_demo.model.event.ImageBufferEvent;
+import com.johnnietfeld.monty.one_minute_demo.model.io.IOExecution;
 import com.johnnietfeld.monty.one_minute_demo.ui.DraggableImage;
 
 /**
- * Holds a buffer of ClassifiedImages with loaded BufferedImages
+ * Holds a buffer of ClassifiedImages with loaded BufferedImages. Images are
+ * loaded by a small fixed pool of worker threads, and handed over through a
+ * thread-safe bounded queue. Every image is acquired through an ImageLifecycle,
+ * and each buffered PreparedImage holds the lease on its image.
+ * 
+ * Workers decode and scale images all the way to their display size, and never
+ * touch Swing components, so that the Event Dispatch Thread only has to swap in
+ * a ready image when the next one is shown.
+ * 
+ * The number of images kept loaded or loading, the depth, adapts between a
+ * minimum and a maximum. The buffer measures how long an image takes to load
+ * and how often the player asks for the next one, and keeps enough images in
+ * flight to cover one load at the player's pace: a fast player with large
+ * images gets a deeper buffer, a slow player a shallow one that holds fewer
+ * decoded images in memory.
+ * 
+ * Each load draws its image from the game when it is started, and loads are
+ * run in priority order. A load started when no image is queued or loading, or
+ * while the player is starving, is for the image needed next and runs before
+ * speculative loads that only deepen the buffer, so its image is shown before
+ * theirs. Loads of the same priority run in the order they were started.
+ * Shutting the buffer down cancels every load: queued ones never run, and
+ * running ones abort their decode.
+ * 
+ * When IOExecution uses virtual threads, each load first reads its image file
+ * on its own virtual thread, and only then joins the loader pool to be decoded
+ * and scaled. Many slow reads can then be in flight at once while decoding
+ * stays bounded by the cores.
+ * 
+ * The buffer also keeps to a byte budget. It counts the pixels held by every
+ * queued image, and only loads another image while the queued images, plus the
+ * average size of an image for every load in flight, fit the budget. At least
+ * one image is always kept loading, so a single image larger than the budget
+ * still gets shown. Large photos then get a shallow buffer, and small images a
+ * buffer as deep as the target depth allows. Until the first image has loaded,
+ * each load is assumed to fill the whole preferred size with 4 bytes per pixel.
+ * 
+ * The player starves when they ask for an image and none is ready. Each
+ * starvation lasts until the next image is handed out, and the buffer counts
+ * starvations and records how long they lasted. On the Event Dispatch Thread,
+ * pollImage or nextImage never wait, and nextImage hands out a placeholder
+ * instead of nothing.
  * 
  * @author Melody
  *
  */
 public class ImageBuffer {
 
-	/** Internal Queue used to store ClassifiedImages */
-	private Queue<DraggableImage> queue;
-	/** Thread to load images */
-	private Thread loader;
-	/** Number of queued load events */
-	private volatile int loadsRemaining;
+	/** Internal Queue used to store loaded images, safe for concurrent use */
+	private BlockingQueue<PreparedImage> queue;
+	/** Pool of worker threads that load images */
+	private ExecutorService loaders;
+	/** Virtual threads that read image files before they are loaded, or null */
+	private ExecutorService readers;
+	/** Whether this ImageBuffer has been shut down */
+	private volatile boolean shutdown = false;
 	/** Game to retrieve the series of ClassifiedImages from */
 	Game game;
-	/** Preferred size for Images to fit in */
-	private Dimension preferredSize;
+	/** Owner of the loaded images */
+	private ImageLifecycle lifecycle;
+	/** Preferred size for Images to fit in, which may change while loading */
+	private volatile Dimension preferredSize;
 	/** Preferred center point for Images to sit at */
 	private Point center;
+	/** Time taken to decode each image */
+	private LatencyRecorder decodeLatency = new LatencyRecorder();
+	/** Time taken to scale each decoded image to its display size */
+	private LatencyRecorder scaleLatency = new LatencyRecorder();
+	/** Number of times the player asked for an image while none was ready */
+	private AtomicLong starvationCount = new AtomicLong();
+	/** How long the player went without an image each time they starved */
+	private LatencyRecorder starvationTime = new LatencyRecorder();
+	/** Time the current starvation began, or 0 if the player is not starving */
+	private AtomicLong starvedSince = new AtomicLong();
+	/** Image shown while the player waits for the next one, made when first needed */
+	private PreparedImage placeholder;
+	/** Number of images that could not be loaded and were skipped */
+	private AtomicLong failedCount = new AtomicLong();
+	/** Number of images in the queue or being loaded */
+	private AtomicInteger pending = new AtomicInteger();
+	/** Whether the game has run out of images to load */
+	private volatile boolean exhausted = false;
+	/** Fewest images to keep in the queue or being loaded */
+	private int minDepth;
+	/** Most images to keep in the queue or being loaded */
+	private int maxDepth;
+	/**
+	 * Number of images to keep in the queue or being loaded, between the bounds
+	 * but never less than 1
+	 */
+	private volatile int targetDepth;
+	/** Moving average of the time taken to load an image, in nanoseconds */
+	private double loadAverage = 0;
+	/** Moving average of the time between requests for images, in nanoseconds */
+	private double intervalAverage = 0;
+	/** Time the last image was handed out, or 0 if none has been */
+	private long lastTaken = 0;
+
+	/** Most bytes of pixels to keep in queued and loading images */
+	private volatile long byteBudget = DEFAULT_BYTE_BUDGET;
+	/**
+	 * Bytes of pixels held by queued images, plus the bytes reserved for images
+	 * being loaded
+	 */
+	private AtomicLong queuedBytes = new AtomicLong();
+	/** Moving average of the bytes of pixels held by a loaded image, 0 until one has loaded */
+	private volatile long averageBytes = 0;
+
+	/** System property that can be set to choose the default byte budget */
+	public static final String BUDGET_PROPERTY = "omg.bufferBytes";
+	/** Default byte budget: a quarter of the memory the JVM may use */
+	public static final long DEFAULT_BYTE_BUDGET = Long.getLong(BUDGET_PROPERTY,
+			Runtime.getRuntime().maxMemory() / 4);
+	/** Number of loads started so far, used to order loads of equal priority */
+	private AtomicLong started = new AtomicLong();
+
+	/** Maximum number of worker threads used to load images */
+	private static final int MAX_LOADERS = 4;
+	/** Priority of a load for the image the player needs next */
+	private static final int PRIORITY_NEXT = 0;
+	/** Priority of a load that only deepens the buffer */
+	private static final int PRIORITY_SPECULATIVE = 1;
+	/** Weight of the newest measurement in the moving averages */
+	private static final double SMOOTHING = 0.25;
 
 	/**
 	 * Creates an ImageBuffer with the specified number of initial images. If
@@ -53,35 +169,99 @@ public class ImageBuffer {
 	 * @param center the Point at which all loaded Images will be centered
 	 */
 	public ImageBuffer(int size, Game game, Dimension bounds, Point center) {
-		// Make sure that initial size is at least 0
-		if (size < 0) {
-			throw new IllegalArgumentException();
-		}
+		this(size, new ImageLifecycle(game), bounds, center);
+	}
 
-		// Make sure we have a valid game
-		if (game == null) {
-			throw new IllegalArgumentException("Game cannot be null!");
+	/**
+	 * Creates an ImageBuffer that acquires its images through the given
+	 * ImageLifecycle.
+	 * 
+	 * @param size      the number of images to load into the Buffer
+	 * @param lifecycle the ImageLifecycle to acquire images through
+	 * @param bounds    the Dimension that all loaded Images will be scaled to fit
+	 *                  within
+	 * @param center    the Point at which all loaded Images will be centered
+	 */
+	public ImageBuffer(int size, ImageLifecycle lifecycle, Dimension bounds, Point center) {
+		this(size, size, lifecycle, bounds, center);
+	}
+
+	/**
+	 * Creates an ImageBuffer whose depth adapts between the given bounds, starting
+	 * at the minimum.
+	 * 
+	 * @param minDepth  the fewest images to keep loaded or loading
+	 * @param maxDepth  the most images to keep loaded or loading
+	 * @param lifecycle the ImageLifecycle to acquire images through
+	 * @param bounds    the Dimension that all loaded Images will be scaled to fit
+	 *                  within
+	 * @param center    the Point at which all loaded Images will be centered
+	 */
+	public ImageBuffer(int minDepth, int maxDepth, ImageLifecycle lifecycle, Dimension bounds, Point center) {
+		this(minDepth, maxDepth, DEFAULT_BYTE_BUDGET, lifecycle, bounds, center);
+	}
+
+	/**
+	 * Creates an ImageBuffer whose depth adapts between the given bounds, starting
+	 * at the minimum, and that keeps to the given byte budget from its first load.
+	 * 
+	 * @param minDepth   the fewest images to keep loaded or loading
+	 * @param maxDepth   the most images to keep loaded or loading
+	 * @param byteBudget the most bytes of pixels to keep in queued and loading
+	 *                   images
+	 * @param lifecycle  the ImageLifecycle to acquire images through
+	 * @param bounds     the Dimension that all loaded Images will be scaled to fit
+	 *                   within
+	 * @param center     the Point at which all loaded Images will be centered
+	 */
+	public ImageBuffer(int minDepth, int maxDepth, long byteBudget, ImageLifecycle lifecycle, Dimension bounds,
+			Point center) {
+		// Make sure the depth bounds make sense
+		if (minDepth < 0 || maxDepth < minDepth) {
+			throw new IllegalArgumentException("Buffer depth must be between 0 and " + maxDepth);
+		}
+		this.minDepth = minDepth;
+		this.maxDepth = maxDepth;
+		this.targetDepth = clampDepth(minDepth);
+		if (byteBudget < 0) {
+			throw new IllegalArgumentException("Byte budget cannot be negative!");
 		}
-		this.game = game;
+		this.byteBudget = byteBudget;
 
-		// Initialize queue and images to load
-		queue = new LinkedList<DraggableImage>();
-		loadsRemaining = size;
+		// Make sure we have a valid lifecycle
+		if (lifecycle == null) {
+			throw new IllegalArgumentException("Image lifecycle cannot be null!");
+		}
+		this.lifecycle = lifecycle;
+		this.game = lifecycle.getGame();
 
 		// Set bounds and center
 		setPreferredSize(bounds);
 		setCenter(center);
 
-		// Prepare the initial queue
-		loader = new LoaderThread();
+		// Initialize queue. The depth never exceeds the maximum, so every loaded
+		// image has a reserved slot and workers never block on a full queue.
+		queue = new ArrayBlockingQueue<PreparedImage>(Math.max(maxDepth, 1));
+
+		// Start the worker pool, sized to the available cores, taking loads in
+		// priority order
+		int workers = Math.max(1,
+				Math.min(Math.min(maxDepth, MAX_LOADERS), Runtime.getRuntime().availableProcessors()));
+		loaders = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+				new PriorityBlockingQueue<Runnable>(), new LoaderThreadFactory());
+		// Read files on virtual threads ahead of the loaders, if they are in use
+		if (IOExecution.usesVirtualThreads()) {
+			readers = IOExecution.newReadExecutor(workers, null);
+		}
 
 		// Load all initial Images
-		if (size > 0)
-			loader.start();
+		prepareImage();
 	}
 
 	/**
-	 * Sets the preferred size that all Images must fit within
+	 * Sets the preferred size that all Images must fit within. Loads started
+	 * afterwards fit the new size; images already queued keep the size they were
+	 * loaded at.
 	 * 
 	 * @param bounds the Dimension that all loaded images will be scaled to fit
 	 *               within
@@ -90,7 +270,10 @@ public class ImageBuffer {
 		if (bounds == null) {
 			throw new IllegalArgumentException("Bounds cannot be null!");
 		}
-		this.preferredSize = bounds;
+		synchronized (this) {
+			this.preferredSize = bounds;
+			this.placeholder = null;
+		}
 	}
 
 	/**
@@ -106,35 +289,321 @@ public class ImageBuffer {
 	}
 
 	/**
-	 * Retrieves the next image from the queue.
+	 * Simple getter for the ImageLifecycle this buffer acquires images through
 	 * 
-	 * @return the nextClassifiedImage in the queue
-	 * @throws IllegalStateException if the queue is empty
+	 * @return the lifecycle field
 	 */
-	public DraggableImage nextImage() {
-		if (queue.isEmpty()) {
-			throw new IllegalStateException("Out of images to show!");
+	public ImageLifecycle getLifecycle() {
+		return lifecycle;
+	}
+
+	/**
+	 * Retrieves the next image from the queue if one is ready. The caller takes
+	 * over the lease on its image. Never blocks, so it is safe to call on the Event
+	 * Dispatch Thread.
+	 * 
+	 * @return the next PreparedImage in the queue, or null if none is ready
+	 */
+	public PreparedImage pollImage() {
+		ImageBufferEvent event = new ImageBufferEvent();
+		event.begin();
+		long requested = System.nanoTime();
+		PreparedImage next = queue.poll();
+		if (next == null) {
+			starved(requested);
+			event.finish(ImageBufferEvent.ACTION_TAKE, null, 0, true);
+			return null;
 		}
+		taken(requested, next);
+		event.finish(ImageBufferEvent.ACTION_TAKE, next.getClassifiedImage().getName(), queue.size(), false);
+		return next;
+	}
+
+	/**
+	 * Retrieves the next image from the queue, or the placeholder if none is
+	 * ready. The caller takes over the lease on a real image. Never blocks, so it
+	 * is safe to call on the Event Dispatch Thread.
+	 * 
+	 * @return the next PreparedImage in the queue, or the placeholder
+	 */
+	public PreparedImage nextImage() {
+		PreparedImage next = pollImage();
+		return next == null ? getPlaceholder() : next;
+	}
 
-		// Remove and return head of queue
-		return queue.poll();
+	/**
+	 * Retrieves the next image from the queue, waiting up to the given time for
+	 * one to be loaded, and falling back to the placeholder if none is. The caller
+	 * takes over the lease on a real image. Must not be called on the Event
+	 * Dispatch Thread.
+	 * 
+	 * @param timeout how long to wait
+	 * @param unit    the unit of timeout
+	 * @return the next PreparedImage in the queue, or the placeholder
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public PreparedImage nextImage(long timeout, TimeUnit unit) throws InterruptedException {
+		PreparedImage next = takeImage(timeout, unit);
+		return next == null ? getPlaceholder() : next;
+	}
 
+	/**
+	 * Retrieves the next image from the queue, waiting for one to be loaded if the
+	 * queue is empty. The caller takes over the lease on its image. Must not be
+	 * called on the Event Dispatch Thread.
+	 * 
+	 * @return the next PreparedImage in the queue
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public PreparedImage takeImage() throws InterruptedException {
+		ImageBufferEvent event = new ImageBufferEvent();
+		event.begin();
+		long requested = System.nanoTime();
+		PreparedImage next = queue.poll();
+		boolean dry = next == null;
+		if (dry) {
+			starved(requested);
+			next = queue.take();
+		}
+		taken(requested, next);
+		event.finish(ImageBufferEvent.ACTION_TAKE, next.getClassifiedImage().getName(), queue.size(), dry);
+		return next;
 	}
 
 	/**
-	 * Loads the next ClassifiedImage into the queue and prepares its graphics.
+	 * Retrieves the next image from the queue, waiting up to the given time for
+	 * one to be loaded if the queue is empty. The caller takes over the lease on
+	 * its image. Must not be called on the Event Dispatch Thread.
+	 * 
+	 * @param timeout how long to wait
+	 * @param unit    the unit of timeout
+	 * @return the next PreparedImage in the queue, or null if none was loaded in
+	 *         time
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public PreparedImage takeImage(long timeout, TimeUnit unit) throws InterruptedException {
+		ImageBufferEvent event = new ImageBufferEvent();
+		event.begin();
+		long requested = System.nanoTime();
+		PreparedImage next = queue.poll();
+		boolean dry = next == null;
+		if (dry) {
+			starved(requested);
+			next = queue.poll(timeout, unit);
+		}
+		if (next != null) {
+			taken(requested, next);
+		}
+		event.finish(ImageBufferEvent.ACTION_TAKE, next == null ? null : next.getClassifiedImage().getName(),
+				queue.size(), dry);
+		return next;
+	}
+
+	/**
+	 * Gets the image to show while the player waits for the next one, which says
+	 * that it is loading. The placeholder fits the preferred size like a loaded
+	 * image would.
+	 * 
+	 * @return the placeholder PreparedImage
+	 */
+	public synchronized PreparedImage getPlaceholder() {
+		if (placeholder == null) {
+			placeholder = PreparedImage.placeholder(preferredSize, DraggableImage.MAX_IMAGE_RATIO);
+		}
+		return placeholder;
+	}
+
+	/**
+	 * Records that the player asked for an image while none was ready. Starts a
+	 * starvation, unless one is already going on or the game has no images left
+	 * to wait for.
+	 * 
+	 * @param requested the time the image was asked for, from System.nanoTime()
+	 */
+	private void starved(long requested) {
+		if (exhausted && pending.get() == 0) {
+			return;
+		}
+		if (starvedSince.compareAndSet(0, requested)) {
+			starvationCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Records that an image was handed out, and adapts the target depth to the
+	 * time since the previous one was
+	 * 
+	 * @param requested the time the image was asked for, from System.nanoTime()
+	 * @param image     the image that was handed out
+	 */
+	private synchronized void taken(long requested, PreparedImage image) {
+		pending.decrementAndGet();
+		queuedBytes.addAndGet(-image.getByteSize());
+		// End the starvation, if the player was starving
+		long since = starvedSince.getAndSet(0);
+		if (since != 0) {
+			starvationTime.record(System.nanoTime() - since);
+		}
+		// Measure the player's pace from when they asked, not from when they got it
+		if (lastTaken != 0) {
+			intervalAverage = average(intervalAverage, requested - lastTaken);
+			updateTargetDepth();
+		}
+		lastTaken = System.nanoTime();
+	}
+
+	/**
+	 * Records how long an image took to load and how large it is, and adapts the
+	 * target depth to it
+	 * 
+	 * @param nanos the time taken to decode and scale the image
+	 * @param bytes the bytes of pixels held by the image
+	 */
+	private synchronized void loaded(long nanos, long bytes) {
+		loadAverage = average(loadAverage, nanos);
+		averageBytes = (long) average(averageBytes, bytes);
+		updateTargetDepth();
+	}
+
+	/**
+	 * Adds a measurement to a moving average
+	 * 
+	 * @param average     the current average, or 0 if there is none yet
+	 * @param measurement the new measurement
+	 * @return the new average
+	 */
+	private static double average(double average, long measurement) {
+		if (average == 0) {
+			return measurement;
+		}
+		return average + SMOOTHING * (measurement - average);
+	}
+
+	/**
+	 * Sets the target depth so that the images in flight cover the time one image
+	 * takes to load at the player's pace, plus the one being loaded. Keeps the
+	 * target between the depth bounds.
+	 */
+	private void updateTargetDepth() {
+		if (loadAverage == 0 || intervalAverage == 0) {
+			return;
+		}
+		int needed = (int) Math.ceil(loadAverage / intervalAverage) + 1;
+		targetDepth = clampDepth(needed);
+	}
+
+	/**
+	 * Keeps a depth between the depth bounds, and at 1 or more so that an image is
+	 * always loading, even with a minimum depth of 0
+	 * 
+	 * @param depth the depth wanted
+	 * @return the depth to use
+	 */
+	private int clampDepth(int depth) {
+		return Math.max(1, Math.max(minDepth, Math.min(maxDepth, depth)));
+	}
+
+	/**
+	 * Loads ClassifiedImages into the queue and prepares their graphics, until
+	 * the number of images queued or loading reaches the target depth, or another
+	 * image would not fit the byte budget. Does nothing once this ImageBuffer has
+	 * been shut down or the game has run out of images.
 	 */
 	public void prepareImage() {
+		while (!shutdown && !exhausted) {
+			// Reserve a place for the image, unless the buffer is deep or full enough
+			int current = pending.get();
+			if (current >= targetDepth) {
+				return;
+			}
+			long estimate = estimateBytes();
+			if (current > 0 && queuedBytes.get() + estimate > byteBudget) {
+				return;
+			}
+			if (!pending.compareAndSet(current, current + 1)) {
+				continue;
+			}
+			queuedBytes.addAndGet(estimate);
+			// Draw the image now, so that the priority of its load decides when it is
+			// shown
+			ClassifiedImage image;
+			try {
+				image = game.drawImage();
+			} catch (IllegalStateException e) {
+				// The game has run out of images, give the place back
+				pending.decrementAndGet();
+				queuedBytes.addAndGet(-estimate);
+				exhausted = true;
+				return;
+			}
+			// The image is needed next if nothing else is on its way, or the player is
+			// already waiting
+			int priority = current == 0 || starvedSince.get() != 0 ? PRIORITY_NEXT : PRIORITY_SPECULATIVE;
+			try {
+				LoadTask task = new LoadTask(image, estimate, priority, started.incrementAndGet());
+				if (readers == null) {
+					loaders.execute(task);
+				} else {
+					readers.execute(task.new ReadStage());
+				}
+			} catch (RejectedExecutionException e) {
+				// The buffer was shut down while submitting, nothing left to load for
+				pending.decrementAndGet();
+				queuedBytes.addAndGet(-estimate);
+				return;
+			}
+		}
+	}
 
-		// Increment the number of loads to be done
-		loadsRemaining++;
+	/**
+	 * Estimates how many bytes of pixels the next image will hold: the average of
+	 * the images loaded so far, or before any has loaded, a whole preferred size
+	 * of 4 byte pixels
+	 * 
+	 * @return the estimated number of bytes
+	 */
+	private long estimateBytes() {
+		long average = averageBytes;
+		if (average > 0) {
+			return average;
+		}
+		Dimension size = preferredSize;
+		return 4L * size.width * size.height;
+	}
 
-		// If the thread is dead, start it
-		if (!loader.isAlive()) {
-			loader = new LoaderThread();
-			loader.start();
+	/**
+	 * Sets the most bytes of pixels to keep in queued and loading images. Lowering
+	 * the budget does not discard queued images, fewer are loaded until the
+	 * buffer fits it.
+	 * 
+	 * @param byteBudget the maximum number of bytes to hold
+	 * @throws IllegalArgumentException if byteBudget is negative
+	 */
+	public void setByteBudget(long byteBudget) {
+		if (byteBudget < 0) {
+			throw new IllegalArgumentException("Byte budget cannot be negative!");
 		}
+		this.byteBudget = byteBudget;
+		prepareImage();
+	}
 
+	/**
+	 * Simple getter for this buffer's byte budget
+	 * 
+	 * @return the byteBudget field
+	 */
+	public long getByteBudget() {
+		return byteBudget;
+	}
+
+	/**
+	 * Gets how many bytes of pixels the queued images hold, plus the bytes
+	 * reserved for images being loaded
+	 * 
+	 * @return the number of bytes held or reserved
+	 */
+	public long getQueuedBytes() {
+		return queuedBytes.get();
 	}
 
 	/**
@@ -147,36 +616,285 @@ public class ImageBuffer {
 	}
 
 	/**
-	 * Thread to load images. Runs in sequence until loadsRemaining is 0
+	 * Gets the number of images this buffer currently keeps queued or loading
+	 * 
+	 * @return the target depth, between the minimum and maximum depth, and at
+	 *         least 1
+	 */
+	public int getTargetDepth() {
+		return targetDepth;
+	}
+
+	/**
+	 * Gets the fewest images this buffer keeps queued or loading
+	 * 
+	 * @return the minDepth field
+	 */
+	public int getMinDepth() {
+		return minDepth;
+	}
+
+	/**
+	 * Gets the most images this buffer keeps queued or loading
+	 * 
+	 * @return the maxDepth field
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Retrieves the time taken to decode each image
+	 * 
+	 * @return the decodeLatency field
+	 */
+	public LatencyRecorder getDecodeLatency() {
+		return decodeLatency;
+	}
+
+	/**
+	 * Retrieves the time taken to scale each decoded image to its display size
+	 * 
+	 * @return the scaleLatency field
+	 */
+	public LatencyRecorder getScaleLatency() {
+		return scaleLatency;
+	}
+
+	/**
+	 * Gets how many times the player asked for an image while none was ready, so
+	 * that they had to wait or were shown the placeholder. Asking again during the
+	 * same wait does not count as a new starvation.
+	 * 
+	 * @return the number of starvations
+	 */
+	public long getStarvationCount() {
+		return starvationCount.get();
+	}
+
+	/**
+	 * Retrieves how long each starvation lasted, from when the player first asked
+	 * for an image until one was handed out
+	 * 
+	 * @return the starvationTime field
+	 */
+	public LatencyRecorder getStarvationTime() {
+		return starvationTime;
+	}
+
+	/**
+	 * Gets how many images could not be loaded and were skipped
+	 * 
+	 * @return the number of failed loads
+	 */
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+
+	/**
+	 * Stops all loading of images and clears the queue. Loads that have not
+	 * started are dropped, and loads that are in progress are interrupted, which
+	 * aborts their decode, and their images discarded. The leases on all discarded
+	 * images are released. Should be called when the Game this buffer serves has
+	 * ended or its window is closed.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		if (readers != null) {
+			readers.shutdownNow();
+		}
+		loaders.shutdownNow();
+		discardQueue();
+	}
+
+	/**
+	 * Removes every image from the queue and releases its lease
+	 */
+	private void discardQueue() {
+		PreparedImage discarded;
+		while ((discarded = queue.poll()) != null) {
+			discarded.release();
+		}
+	}
+
+	/**
+	 * Tells whether this ImageBuffer has been shut down.
+	 * 
+	 * @return true if shutdown() has been called, else false
+	 */
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	/**
+	 * Task to load a single image, drawn when the task was made, and add it to the
+	 * queue. Tasks are ordered by priority, then by the order they were started in.
 	 * 
 	 * @author Melody
 	 *
 	 */
-	private class LoaderThread extends Thread {
+	private class LoadTask implements Runnable, Comparable<LoadTask> {
+		/** Bytes reserved for the image before it was loaded */
+		private long reserved;
+		/** Priority of this load, lower runs first */
+		private int priority;
+		/** Number of this load among all loads started by the buffer */
+		private long sequence;
+		/** The image to load */
+		private ClassifiedImage image;
+		/** Contents of the image file, read ahead of the load, or null */
+		private byte[] encoded;
+
+		/**
+		 * Creates a LoadTask for an image with the given number of bytes reserved
+		 * 
+		 * @param image    the image to load
+		 * @param reserved the bytes reserved for the image
+		 * @param priority the priority of the load, lower runs first
+		 * @param sequence the number of the load among all loads started
+		 */
+		LoadTask(ClassifiedImage image, long reserved, int priority, long sequence) {
+			this.image = image;
+			this.reserved = reserved;
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(LoadTask other) {
+			if (priority != other.priority) {
+				return Integer.compare(priority, other.priority);
+			}
+			return Long.compare(sequence, other.sequence);
+		}
+
+		/**
+		 * Gives up on this load, freeing its place in the buffer and the bytes it
+		 * holds
+		 */
+		private void abandon() {
+			pending.decrementAndGet();
+			queuedBytes.addAndGet(-reserved);
+		}
+
+		/**
+		 * Reads the file of a LoadTask's image on a virtual thread, then hands the
+		 * task to the loader pool
+		 * 
+		 * @author Melody Griesen
+		 *
+		 */
+		private class ReadStage implements Runnable {
+			@Override
+			public void run() {
+				try {
+					encoded = image.readEncoded();
+				} catch (RuntimeException e) {
+					// Leave the file for the decode to read again and report
+					encoded = null;
+				}
+				try {
+					loaders.execute(LoadTask.this);
+				} catch (RejectedExecutionException e) {
+					// The buffer was shut down while reading
+					abandon();
+				}
+			}
+		}
+
+		@Override
 		public void run() {
 
-			// Attempt to get the next ClassifiedImage from the Game's stream and load its
-			// BufferedImage
+			// Attempt to load the BufferedImage of the drawn ClassifiedImage
+			ImageBufferEvent event = new ImageBufferEvent();
+			event.begin();
+			// The prepared image until the queue takes it, released if it never does
+			PreparedImage newImage = null;
+			PreparedImage queued = null;
 			try {
-				ClassifiedImage buffer = game.nextImage();
+				long start = System.nanoTime();
+				// Decode and scale to the same size, even if it changes meanwhile
+				Dimension size = preferredSize;
+				ImageLease lease = lifecycle.acquire(image, size, encoded);
+				encoded = null;
+				long decoded = System.nanoTime();
 
-				buffer.loadImage();
+				// Scale to the display size here, so the Event Dispatch Thread doesn't have to.
+				// The PreparedImage owns the lease from here, and releases it itself if it
+				// cannot scale the image.
+				newImage = new PreparedImage(lease, size, DraggableImage.MAX_IMAGE_RATIO);
+				long scaled = System.nanoTime();
+				decodeLatency.record(decoded - start);
+				scaleLatency.record(scaled - decoded);
+				loaded(scaled - start, newImage.getByteSize());
+				// Swap the reservation for the real size of the image, which is what
+				// abandoning the load gives back from now on
+				queuedBytes.addAndGet(newImage.getByteSize() - reserved);
+				reserved = newImage.getByteSize();
 
-				DraggableImage newImage = new DraggableImage(buffer);
-				newImage.fitImage(preferredSize, center); // TODO: Get Center Point
+				// Discard the image if the buffer was shut down while loading
+				if (shutdown) {
+					abandon();
+					return;
+				}
+				queue.put(newImage);
+				queued = newImage;
+				newImage = null;
+			} catch (CancellationException e) {
+				// Buffer was shut down while decoding, stop loading
+				abandon();
+			} catch (IllegalArgumentException e) {
+				// The image could not be loaded, skip it and load the next one instead
+				abandon();
+				failedCount.incrementAndGet();
+				event.finish(ImageBufferEvent.ACTION_SKIP, null, queue.size(), false);
+				prepareImage();
+			} catch (InterruptedException e) {
+				// Buffer was shut down, stop loading
+				abandon();
+				Thread.currentThread().interrupt();
+			} catch (RuntimeException e) {
+				// Anything else went wrong, free the place and skip the image like a failed load
+				abandon();
+				failedCount.incrementAndGet();
+				event.finish(ImageBufferEvent.ACTION_SKIP, null, queue.size(), false);
+				prepareImage();
+			} finally {
+				// Release an image that was prepared but never queued
+				if (newImage != null) {
+					newImage.release();
+				}
+			}
 
-				queue.add(newImage);
+			// Once queued, the image is the buffer's and is no longer abandoned
+			if (queued != null) {
+				event.finish(ImageBufferEvent.ACTION_LOAD, queued.getClassifiedImage().getName(), queue.size(), false);
 
-				// If there's still loads to be done, run the thread again
-				if (--loadsRemaining >= 0) {
-					loader = new LoaderThread();
-					loader.start();
+				// The buffer may have been shut down after the check above
+				if (shutdown) {
+					discardQueue();
 				}
-
-			} catch (IllegalStateException e) {
-				// Do nothing but let the list dwindle
 			}
 		}
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Makes named daemon threads for the loader pool, so that a running loader
+	 * never keeps the application alive.
+	 * 
+	 * @author Melody
+	 *
+	 */
+	private static class LoaderThreadFactory implements ThreadFactory {
+		/** Number of loader threads made so far, used for naming */
+		private static final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "ImageBuffer-loader-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
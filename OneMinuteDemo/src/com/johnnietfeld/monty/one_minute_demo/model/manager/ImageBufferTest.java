@@ -1,20 +1,32 @@
 package com.johnnietfeld.monty.one_minute_demo.model.manager;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.awt.Dimension;
 import java.awt.Point;
 import java.io.File;
 import java.io.FileFilter;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import com.johnnietfeld.monty.one_minute_demo.model.data.Category;
 import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
+import com.johnnietfeld.monty.one_minute_demo.model.io.ThumbnailCache;
 import com.johnnietfeld.monty.one_minute_demo.model.list.ImageList;
 
 public class ImageBufferTest {
@@ -27,18 +39,38 @@ public class ImageBufferTest {
 	private static final ArrayList<ClassifiedImage> testImages = new ArrayList<ClassifiedImage>();
 	/** File location of test images folder */
 	private static final String IMAGES_FOLDER = "test-files";
+	/** Default thumbnail cache before these tests */
+	private static ThumbnailCache savedThumbnails;
+	/** Temporary folder the thumbnail cache uses during these tests */
+	private static File thumbnailFolder;
 
 	@BeforeClass
 	public static void setUpBeforeClass() throws Exception {
-		Category cat = new Category("a");
+		// Keep thumbnails made by loads out of the user's cache
+		savedThumbnails = ThumbnailCache.getDefault();
+		thumbnailFolder = Files.createTempDirectory("omg-thumbnails").toFile();
+		ThumbnailCache.setDefault(new ThumbnailCache(thumbnailFolder));
+
+		// A Game needs at least two categories, so alternate between them
+		Category[] cats = { new Category("a"), new Category("b") };
 		for (File imageFile : new File(IMAGES_FOLDER).listFiles(new FileFilter() {
 			@Override
 			public boolean accept(File pathname) {
 				return pathname.isFile();
 			}
 		})) {
-			testImages.add(new ClassifiedImage(imageFile.getAbsolutePath(), cat, imageFile.getName()));
+			testImages.add(new ClassifiedImage(imageFile.getAbsolutePath(), cats[testImages.size() % cats.length],
+					imageFile.getName()));
+		}
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() {
+		ThumbnailCache.setDefault(savedThumbnails);
+		for (File file : thumbnailFolder.listFiles()) {
+			file.delete();
 		}
+		thumbnailFolder.delete();
 	}
 
 	@Before
@@ -106,4 +138,155 @@ public class ImageBufferTest {
 		fail("Not yet implemented");
 	}
 
+	@Test
+	public void testByteBudget() throws InterruptedException {
+		// Count the loads the buffer starts
+		AtomicInteger loads = new AtomicInteger();
+		ImageLifecycle counting = new ImageLifecycle(testGame) {
+			@Override
+			public ImageLease acquire(ClassifiedImage image, Dimension target, byte[] encoded) {
+				loads.incrementAndGet();
+				return super.acquire(image, target, encoded);
+			}
+		};
+
+		// Budget room for two and a half images filling the preferred size
+		Dimension size = new Dimension(100, 100);
+		long budget = 4L * size.width * size.height * 5 / 2;
+		ImageBuffer test = new ImageBuffer(8, 8, budget, counting, size, new Point(50, 50));
+		assertEquals(budget, test.getByteBudget());
+
+		// Assert the first fill already kept to the budget, before any image was
+		// measured, and only started two loads
+		assertTrue(test.getQueuedBytes() <= budget);
+		long deadline = System.currentTimeMillis() + 10000;
+		while (test.size() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(500);
+		assertEquals(2, test.size());
+		assertEquals(2, loads.get());
+
+		// Assert a negative budget is rejected
+		try {
+			new ImageBuffer(1, 1, -1, new ImageLifecycle(testGame), size, new Point(50, 50));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// Correct exception thrown
+		}
+		test.shutdown();
+	}
+
+	@Test
+	public void testZeroMinimumDepth() throws InterruptedException {
+		// Assert a buffer with a minimum depth of 0 still loads an image to take
+		ImageBuffer test = new ImageBuffer(0, 0, new ImageLifecycle(testGame), new Dimension(100, 100),
+				new Point(50, 50));
+		assertEquals(1, test.getTargetDepth());
+		PreparedImage next = test.takeImage(10, TimeUnit.SECONDS);
+		assertNotNull(next);
+		next.release();
+		test.shutdown();
+	}
+
+	@Test
+	public void testStarvingLoadRunsFirst() throws InterruptedException {
+		// Record the order images are decoded in, and hold every loader until let go
+		List<ClassifiedImage> decoded = Collections.synchronizedList(new ArrayList<ClassifiedImage>());
+		Semaphore gate = new Semaphore(0);
+		ImageLifecycle gated = new ImageLifecycle(testGame) {
+			@Override
+			public ImageLease acquire(ClassifiedImage image, Dimension target, byte[] encoded) {
+				decoded.add(image);
+				gate.acquireUninterruptibly();
+				return super.acquire(image, target, encoded);
+			}
+		};
+		List<ClassifiedImage> dealt = testGame.peekImages(7);
+
+		// Budget room for six loads, so that the ones the loaders don't hold are queued
+		Dimension size = new Dimension(100, 100);
+		long estimate = 4L * size.width * size.height;
+		ImageBuffer test = new ImageBuffer(8, 8, estimate * 6, gated, size, new Point(50, 50));
+		long deadline = System.currentTimeMillis() + 10000;
+		while (decoded.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(300);
+		int loaders = decoded.size();
+		assertTrue(loaders >= 1 && loaders < 6);
+		assertEquals(dealt.subList(0, loaders), decoded);
+
+		// Starve, then make room for one more load, which is for the starving player
+		assertNull(test.pollImage());
+		test.setByteBudget(estimate * 7);
+
+		// Assert the starving load is decoded ahead of the speculative ones queued
+		// before it
+		gate.release();
+		while (decoded.size() <= loaders && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertSame(dealt.get(6), decoded.get(loaders));
+
+		gate.release(100);
+		test.shutdown();
+	}
+
+	@Test
+	public void testShutdownWhileLoading() throws InterruptedException {
+		// Hold the first load until let go, then let it finish as if it never saw the
+		// shutdown's interrupt
+		Semaphore gate = new Semaphore(0);
+		AtomicInteger loads = new AtomicInteger();
+		ImageLifecycle gated = new ImageLifecycle(testGame) {
+			@Override
+			public ImageLease acquire(ClassifiedImage image, Dimension target, byte[] encoded) {
+				loads.incrementAndGet();
+				gate.acquireUninterruptibly();
+				Thread.interrupted();
+				return super.acquire(image, target, encoded);
+			}
+		};
+		ImageBuffer test = new ImageBuffer(1, gated, new Dimension(100, 100), new Point(50, 50));
+		long deadline = System.currentTimeMillis() + 10000;
+		while (loads.get() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		// Assert the load finished after the shutdown gives back its bytes and lease
+		test.shutdown();
+		gate.release();
+		while ((test.getQueuedBytes() != 0 || gated.leased() != 0) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, test.getQueuedBytes());
+		assertEquals(0, gated.leased());
+	}
+
+	@Test
+	public void testUnexpectedLoadFailure() throws InterruptedException {
+		// Fail the first load with an exception the buffer has no specific handling for
+		ImageLifecycle failing = new ImageLifecycle(testGame) {
+			private boolean failed = false;
+
+			@Override
+			public ImageLease acquire(ClassifiedImage image, Dimension target, byte[] encoded) {
+				if (!failed) {
+					failed = true;
+					throw new UnsupportedOperationException("Broken decoder");
+				}
+				return super.acquire(image, target, encoded);
+			}
+		};
+		ImageBuffer test = new ImageBuffer(1, failing, new Dimension(100, 100), new Point(50, 50));
+
+		// Assert the failed load gave its only place back, so the next image still loads
+		PreparedImage next = test.takeImage(10, TimeUnit.SECONDS);
+		assertNotNull(next);
+		assertEquals(1, test.getFailedCount());
+		next.release();
+		test.shutdown();
+	}
+
 }
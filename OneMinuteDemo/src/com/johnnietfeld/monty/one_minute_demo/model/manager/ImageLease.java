@@ -0,0 +1,147 @@
+package com.johnnietfeld.monty.one_minute_demo.model.manager;
+
+import java.awt.Dimension;
+
+import javax.swing.ImageIcon;
+
+import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
+
+/**
+ * Reference-counted handle on a loaded image, handed out by an ImageLifecycle.
+ * Whoever holds a lease may show its image, and must release it once the image
+ * is no longer shown. The image is unloaded when every holder has released it.
+ * 
+ * @author Melody
+ *
+ */
+public class ImageLease {
+
+	/** The ImageLifecycle that handed out this lease */
+	private ImageLifecycle owner;
+	/** The leased image */
+	private ClassifiedImage image;
+	/** The loaded image, or null until it has been loaded */
+	private ImageIcon icon;
+	/** Size the image was loaded to fit, or null if it was loaded at full size */
+	private Dimension loadedTarget;
+	/** Number of holders that have not released this lease, guarded by owner */
+	private int references;
+
+	/**
+	 * Creates a lease with one reference on an image that is not yet loaded.
+	 * 
+	 * @param owner the ImageLifecycle handing out this lease
+	 * @param image the image to lease
+	 */
+	ImageLease(ImageLifecycle owner, ClassifiedImage image) {
+		this.owner = owner;
+		this.image = image;
+		this.references = 1;
+	}
+
+	/**
+	 * Loads the leased image if it is not yet loaded, or loads it again if the
+	 * target is wider or taller than the size it was loaded to fit. A target that
+	 * fits within the loaded size uses the image already loaded. Holders that
+	 * share a lease wait here for the first holder to finish loading, so the image
+	 * is decoded only once for each size it grows to.
+	 * 
+	 * @param target  the size to load the image to fit, or null for full size
+	 * @param encoded the contents of the image file, or null to read the file
+	 * @throws IllegalArgumentException if the image could not be loaded
+	 */
+	synchronized void load(Dimension target, byte[] encoded) {
+		// A target without area loads the image at full size
+		Dimension wanted = target == null || target.width <= 0 || target.height <= 0 ? null : new Dimension(target);
+		if (icon != null && !exceeds(wanted, loadedTarget)) {
+			return;
+		}
+		image.loadImage(wanted, encoded);
+		icon = image.getLoadedImage();
+		loadedTarget = wanted;
+		owner.decoded();
+	}
+
+	/**
+	 * Tells whether a target needs more pixels than the size an image was loaded
+	 * to fit
+	 * 
+	 * @param target the size wanted, or null for full size
+	 * @param loaded the size loaded, or null for full size
+	 * @return true if target is wider or taller than loaded, else false
+	 */
+	private static boolean exceeds(Dimension target, Dimension loaded) {
+		if (loaded == null) {
+			return false;
+		}
+		if (target == null) {
+			return true;
+		}
+		return target.width > loaded.width || target.height > loaded.height;
+	}
+
+	/**
+	 * Simple getter for the leased image
+	 * 
+	 * @return the image field
+	 */
+	public ClassifiedImage getImage() {
+		return image;
+	}
+
+	/**
+	 * Retrieves the loaded image. The returned icon stays valid after the lease is
+	 * released, or the image is loaded again at a larger size, but should no
+	 * longer be shown once the lease is released.
+	 * 
+	 * @return the loaded ImageIcon
+	 */
+	public synchronized ImageIcon getIcon() {
+		return icon;
+	}
+
+	/**
+	 * Adds a holder to this lease, who must release it separately.
+	 * 
+	 * @return this lease
+	 * @throws IllegalStateException if this lease has already been fully released
+	 */
+	public ImageLease retain() {
+		synchronized (owner) {
+			if (references == 0) {
+				throw new IllegalStateException("Image lease has already been released");
+			}
+			++references;
+		}
+		return this;
+	}
+
+	/**
+	 * Removes a holder from this lease. The image is unloaded once every holder
+	 * has released it.
+	 * 
+	 * @throws IllegalStateException if this lease has already been fully released
+	 */
+	public void release() {
+		synchronized (owner) {
+			if (references == 0) {
+				throw new IllegalStateException("Image lease has already been released");
+			}
+			if (--references == 0) {
+				owner.released(this);
+			}
+		}
+	}
+
+	/**
+	 * Tells whether every holder has released this lease.
+	 * 
+	 * @return true if this lease has been fully released, else false
+	 */
+	public boolean isReleased() {
+		synchronized (owner) {
+			return references == 0;
+		}
+	}
+
+}
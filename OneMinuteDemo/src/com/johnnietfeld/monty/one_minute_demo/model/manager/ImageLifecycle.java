@@ -0,0 +1,157 @@
+package com.johnnietfeld.monty.one_minute_demo.model.manager;
+
+import java.awt.Dimension;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
+
+/**
+ * Owns the loaded images of a Game from the moment they are drawn until they
+ * are no longer shown. Every image that will be displayed is acquired here,
+ * which decodes it exactly once and hands out an ImageLease for it. Acquiring an
+ * image that is already leased shares the same decoded image instead of decoding
+ * it again. Once every lease of an image has been released, the image is
+ * unloaded.
+ * 
+ * @author Melody
+ *
+ */
+public class ImageLifecycle {
+
+	/** Game to draw the series of ClassifiedImages from */
+	private Game game;
+	/** Leases of every image currently loaded, guarded by this object */
+	private HashMap<ClassifiedImage, ImageLease> leases;
+	/** Number of times an image has been decoded for a lease */
+	private AtomicLong decodes;
+
+	/**
+	 * Creates an ImageLifecycle for the images of the given Game.
+	 * 
+	 * @param game the Game to draw images from
+	 * @throws IllegalArgumentException if game is null
+	 */
+	public ImageLifecycle(Game game) {
+		if (game == null) {
+			throw new IllegalArgumentException("Game cannot be null!");
+		}
+		this.game = game;
+		this.leases = new HashMap<ClassifiedImage, ImageLease>();
+		this.decodes = new AtomicLong();
+	}
+
+	/**
+	 * Simple getter for the Game this ImageLifecycle draws images from
+	 * 
+	 * @return the game field
+	 */
+	public Game getGame() {
+		return game;
+	}
+
+	/**
+	 * Draws the next image from the Game and acquires a lease on it, loaded to fit
+	 * the target size.
+	 * 
+	 * @param target the size to load the image to fit, or null for full size
+	 * @return a lease on the loaded image, to be released once it is no longer
+	 *         shown
+	 * @throws IllegalStateException    if the Game is out of images and not set to
+	 *                                  recycle images
+	 * @throws IllegalArgumentException if the image could not be loaded
+	 */
+	public ImageLease acquireNext(Dimension target) {
+		return acquire(game.drawImage(), target);
+	}
+
+	/**
+	 * Acquires a lease on an image, loaded to fit the target size. If the image is
+	 * already leased, the lease is shared. The image is then only decoded again if
+	 * the target is wider or taller than the size it was loaded to fit; a smaller
+	 * target shares the larger image.
+	 * 
+	 * @param image  the image to acquire
+	 * @param target the size to load the image to fit, or null for full size
+	 * @return a lease on the loaded image, to be released once it is no longer
+	 *         shown
+	 * @throws IllegalArgumentException if the image could not be loaded
+	 */
+	public ImageLease acquire(ClassifiedImage image, Dimension target) {
+		return acquire(image, target, null);
+	}
+
+	/**
+	 * Acquires a lease on an image, loaded to fit the target size from contents of
+	 * its file that have already been read. If the image is already leased, the
+	 * lease is shared. The image is then only decoded again, from the contents, if
+	 * the target is wider or taller than the size it was loaded to fit; a smaller
+	 * target shares the larger image and the contents are not used.
+	 * 
+	 * @param image   the image to acquire
+	 * @param target  the size to load the image to fit, or null for full size
+	 * @param encoded the contents of the image file, or null to read the file
+	 * @return a lease on the loaded image, to be released once it is no longer
+	 *         shown
+	 * @throws IllegalArgumentException if the image could not be loaded
+	 */
+	public ImageLease acquire(ClassifiedImage image, Dimension target, byte[] encoded) {
+		ImageLease lease;
+		synchronized (this) {
+			lease = leases.get(image);
+			if (lease == null) {
+				lease = new ImageLease(this, image);
+				leases.put(image, lease);
+			} else {
+				lease.retain();
+			}
+		}
+
+		// Decode outside the lock, so that different images load in parallel
+		try {
+			lease.load(target, encoded);
+		} catch (RuntimeException e) {
+			lease.release();
+			throw e;
+		}
+		return lease;
+	}
+
+	/**
+	 * Counts a decode done for a lease
+	 */
+	void decoded() {
+		decodes.incrementAndGet();
+	}
+
+	/**
+	 * Called by a lease once its last reference is released. Unloads the image.
+	 * 
+	 * @param lease the lease that has been fully released
+	 */
+	synchronized void released(ImageLease lease) {
+		if (leases.get(lease.getImage()) == lease) {
+			leases.remove(lease.getImage());
+			lease.getImage().flushLoadedImage();
+		}
+	}
+
+	/**
+	 * Gets how many images are currently leased
+	 * 
+	 * @return the number of loaded images that have not been fully released
+	 */
+	public synchronized int leased() {
+		return leases.size();
+	}
+
+	/**
+	 * Gets how many times an image has been decoded for a lease
+	 * 
+	 * @return the number of decodes
+	 */
+	public long getDecodeCount() {
+		return decodes.get();
+	}
+
+}
@@ -0,0 +1,133 @@
+package com.johnnietfeld.monty.one_minute_demo.model.manager;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Records latencies of a pipeline stage and reports their percentiles. Safe for
+ * concurrent use. Every sample is kept until MAX_SAMPLES have been recorded,
+ * after which a uniform random selection of MAX_SAMPLES is kept, so memory
+ * stays bounded however long a game runs.
+ * 
+ * @author Melody
+ *
+ */
+public class LatencyRecorder {
+
+	/** Maximum number of samples kept */
+	public static final int MAX_SAMPLES = 1 << 16;
+
+	/** Kept samples, in nanoseconds */
+	private long[] samples;
+	/** Number of kept samples */
+	private int kept;
+	/** Number of samples recorded in total */
+	private long count;
+	/** Sum of all recorded samples, in nanoseconds */
+	private long total;
+	/** Largest recorded sample, in nanoseconds */
+	private long max;
+	/** Picks which samples are kept once the maximum is reached */
+	private Random random;
+
+	/**
+	 * Creates an empty LatencyRecorder
+	 */
+	public LatencyRecorder() {
+		samples = new long[64];
+		random = new Random();
+	}
+
+	/**
+	 * Records one latency
+	 * 
+	 * @param nanos the latency in nanoseconds
+	 */
+	public synchronized void record(long nanos) {
+		++count;
+		total += nanos;
+		max = Math.max(max, nanos);
+		if (kept < MAX_SAMPLES) {
+			if (kept == samples.length) {
+				samples = Arrays.copyOf(samples, samples.length * 2);
+			}
+			samples[kept++] = nanos;
+		} else {
+			// Replace a kept sample with decreasing probability, keeping a uniform
+			// selection of all samples
+			long slot = (long) (random.nextDouble() * count);
+			if (slot < MAX_SAMPLES) {
+				samples[(int) slot] = nanos;
+			}
+		}
+	}
+
+	/**
+	 * Gets how many latencies have been recorded
+	 * 
+	 * @return the number of recorded latencies
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the mean of all recorded latencies
+	 * 
+	 * @return the mean in nanoseconds, or 0 if none have been recorded
+	 */
+	public synchronized long getMean() {
+		return count == 0 ? 0 : total / count;
+	}
+
+	/**
+	 * Gets the largest recorded latency
+	 * 
+	 * @return the maximum in nanoseconds, or 0 if none have been recorded
+	 */
+	public synchronized long getMax() {
+		return max;
+	}
+
+	/**
+	 * Gets a percentile of the recorded latencies, using the nearest-rank method
+	 * 
+	 * @param percentile the percentile to get, from 0 to 100
+	 * @return the percentile in nanoseconds, or 0 if none have been recorded
+	 * @throws IllegalArgumentException if percentile is not between 0 and 100
+	 */
+	public synchronized long getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100");
+		}
+		if (kept == 0) {
+			return 0;
+		}
+		long[] sorted = Arrays.copyOf(samples, kept);
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(percentile / 100 * kept);
+		return sorted[Math.max(0, rank - 1)];
+	}
+
+	/**
+	 * Forgets all recorded latencies
+	 */
+	public synchronized void reset() {
+		kept = 0;
+		count = 0;
+		total = 0;
+		max = 0;
+	}
+
+	/**
+	 * Returns a summary of the recorded latencies
+	 * 
+	 * @return the count, and the p50, p99 and maximum latencies in milliseconds
+	 */
+	@Override
+	public synchronized String toString() {
+		return String.format("n=%d p50=%.2fms p99=%.2fms max=%.2fms", count, getPercentile(50) / 1e6,
+				getPercentile(99) / 1e6, max / 1e6);
+	}
+
+}
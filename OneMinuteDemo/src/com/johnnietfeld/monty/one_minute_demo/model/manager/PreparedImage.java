@@ -0,0 +1,182 @@
+package com.johnnietfeld.monty.one_minute_demo.model.manager;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
+import com.johnnietfeld.monty.one_minute_demo.model.data.DecodedImageCache;
+import com.johnnietfeld.monty.one_minute_demo.model.data.ImageScaler;
+import com.johnnietfeld.monty.one_minute_demo.model.event.ImageScaleEvent;
+
+/**
+ * An image that is ready to be shown: decoded, and scaled to the size it will
+ * be displayed at. PreparedImages are made by background loaders, so that
+ * showing one on the Event Dispatch Thread only has to swap the displayed
+ * image. A PreparedImage holds the lease on its image until whoever shows it
+ * takes the lease over, or it is released.
+ * 
+ * A placeholder PreparedImage has no lease and no ClassifiedImage, and is shown
+ * while the player waits for the next real image.
+ * 
+ * @author Melody
+ *
+ */
+public class PreparedImage {
+
+	/** Lease on the decoded image */
+	private ImageLease lease;
+	/** The decoded image scaled to its display size */
+	private BufferedImage scaled;
+	/** Number of bytes of pixels held by this image */
+	private long byteSize;
+
+	/** Text shown on placeholder images */
+	private static final String PLACEHOLDER_TEXT = "Loading...";
+	/** Background color of placeholder images */
+	private static final Color PLACEHOLDER_BACKGROUND = new Color(0xDDDDDD);
+
+	/**
+	 * Prepares a leased image by scaling it to fill a fraction of the bounds. Does
+	 * the scaling on the calling thread, which should not be the Event Dispatch
+	 * Thread.
+	 * 
+	 * @param lease    lease on the decoded image, which this PreparedImage takes
+	 *                 over
+	 * @param bounds   the size the image will be shown within
+	 * @param fraction the fraction of the bounds' width or height the image may
+	 *                 take up
+	 * @throws IllegalArgumentException if lease or bounds is null
+	 */
+	public PreparedImage(ImageLease lease, Dimension bounds, double fraction) {
+		if (lease == null || bounds == null) {
+			throw new IllegalArgumentException("Cannot prepare an image without a lease and bounds");
+		}
+		this.lease = lease;
+		try {
+			ImageScaleEvent event = new ImageScaleEvent();
+			event.begin();
+			Image source = lease.getIcon().getImage();
+			Dimension size = ImageScaler.fitSize(source.getWidth(null), source.getHeight(null), bounds, fraction);
+			this.scaled = ImageScaler.scale(source, size.width, size.height);
+			event.finish(lease.getImage().getName(), source, size);
+
+			// Count the decoded image too, which is held for as long as the lease is
+			this.byteSize = DecodedImageCache.byteSize(scaled);
+			if (source != scaled) {
+				this.byteSize += DecodedImageCache.byteSize(source);
+			}
+		} catch (RuntimeException e) {
+			// Nobody else will release the lease of an image that failed to scale
+			lease.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Creates a placeholder PreparedImage with no lease
+	 * 
+	 * @param scaled the image to show
+	 */
+	private PreparedImage(BufferedImage scaled) {
+		this.scaled = scaled;
+		this.byteSize = DecodedImageCache.byteSize(scaled);
+	}
+
+	/**
+	 * Makes a placeholder image, which says that the next image is loading, sized
+	 * like a 4:3 image filling a fraction of the bounds
+	 * 
+	 * @param bounds   the size the placeholder will be shown within
+	 * @param fraction the fraction of the bounds' width or height the placeholder
+	 *                 may take up
+	 * @return a placeholder PreparedImage
+	 * @throws IllegalArgumentException if bounds is null
+	 */
+	public static PreparedImage placeholder(Dimension bounds, double fraction) {
+		if (bounds == null) {
+			throw new IllegalArgumentException("Cannot make a placeholder without bounds");
+		}
+		// Size the placeholder like a 4:3 photo
+		Dimension size = ImageScaler.fitSize(4, 3, bounds, fraction);
+		BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			// Fill the background and draw a border
+			g.setColor(PLACEHOLDER_BACKGROUND);
+			g.fillRect(0, 0, size.width, size.height);
+			g.setColor(Color.GRAY);
+			g.drawRect(0, 0, size.width - 1, size.height - 1);
+
+			// Center the text
+			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			FontMetrics metrics = g.getFontMetrics();
+			g.drawString(PLACEHOLDER_TEXT, (size.width - metrics.stringWidth(PLACEHOLDER_TEXT)) / 2,
+					(size.height - metrics.getHeight()) / 2 + metrics.getAscent());
+		} finally {
+			g.dispose();
+		}
+		return new PreparedImage(image);
+	}
+
+	/**
+	 * Tells whether this is a placeholder, with no lease or ClassifiedImage
+	 * 
+	 * @return true if this is a placeholder, else false
+	 */
+	public boolean isPlaceholder() {
+		return lease == null;
+	}
+
+	/**
+	 * Simple getter for the lease on the decoded image
+	 * 
+	 * @return the lease field, or null for a placeholder
+	 */
+	public ImageLease getLease() {
+		return lease;
+	}
+
+	/**
+	 * Retrieves the ClassifiedImage that was prepared
+	 * 
+	 * @return the leased ClassifiedImage, or null for a placeholder
+	 */
+	public ClassifiedImage getClassifiedImage() {
+		return lease == null ? null : lease.getImage();
+	}
+
+	/**
+	 * Retrieves the decoded image at its display size
+	 * 
+	 * @return the scaled image
+	 */
+	public BufferedImage getScaledImage() {
+		return scaled;
+	}
+
+	/**
+	 * Gets how many bytes of pixels this image holds, counting both the decoded
+	 * image and its scaled copy
+	 * 
+	 * @return the byteSize field
+	 */
+	public long getByteSize() {
+		return byteSize;
+	}
+
+	/**
+	 * Releases the lease on the image, for a PreparedImage that will not be shown.
+	 * Does nothing for a placeholder.
+	 */
+	public void release() {
+		if (lease != null) {
+			lease.release();
+		}
+	}
+
+}
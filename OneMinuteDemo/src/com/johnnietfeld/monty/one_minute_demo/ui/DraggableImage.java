@@ -12,6 +12,10 @@ import javax.swing.ImageIcon;
 import javax.swing.JLabel;
 
 import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
+import com.johnnietfeld.monty.one_minute_demo.model.data.ImageScaler;
+import com.johnnietfeld.monty.one_minute_demo.model.event.ImageScaleEvent;
+import com.johnnietfeld.monty.one_minute_demo.model.manager.ImageLease;
+import com.johnnietfeld.monty.one_minute_demo.model.manager.PreparedImage;
 
 /**
  * Custom ImageIcon gui component that allows dragging with the mouse
@@ -25,6 +29,14 @@ public class DraggableImage extends JLabel {
 	private static final long serialVersionUID = -1796984509726502070L;
 	/** ClassifiedImage that this DraggableImage is using for its image. */
 	private ClassifiedImage content = null;
+	/** Lease on the shown image, or null if it was not acquired through one */
+	private ImageLease lease = null;
+	/** Unscaled image that fit images are scaled from */
+	private Image source = null;
+	/** Source image scaled by the last call to fitImage, or null if none */
+	private BufferedImage scaled = null;
+	/** Size of the scaled image */
+	private Dimension scaledSize = null;
 	/** ImageIcon being used to show BufferedImages */
 	private ImageIcon icon = null;
 	/** Mouse Listener for GUI events that happen on mouse release before moving */
@@ -34,13 +46,13 @@ public class DraggableImage extends JLabel {
 	/** Mouse Listener for GUI events that happen on mouse click */
 	private MouseListener onClickListener = null;
 	/** Maximum percent of a Category's width or height that an Image may take */
-	private static final double MAX_IMAGE_RATIO = 0.75;
+	public static final double MAX_IMAGE_RATIO = 0.75;
 
 	/**
 	 * Creates a DraggableImage with no saved Image.
 	 */
 	public DraggableImage() {
-		this(null);
+		this((ClassifiedImage) null);
 	}
 
 	/**
@@ -62,6 +74,18 @@ public class DraggableImage extends JLabel {
 //		setBorder(bdrGray);	// TODO: Move to main
 	}
 
+	/**
+	 * Creates a DraggableImage that shows the image of the provided lease. The
+	 * DraggableImage takes over the lease, and releases it once it stops showing
+	 * the image.
+	 * 
+	 * @param lease lease on the image to show
+	 */
+	public DraggableImage(ImageLease lease) {
+		this((ClassifiedImage) null);
+		setSource(lease);
+	}
+
 	/**
 	 * Sets the MouseListener this DraggableImage will use before relocating
 	 * 
@@ -98,15 +122,72 @@ public class DraggableImage extends JLabel {
 	 * @param newImage new ClassifiedImage to use
 	 */
 	public void setSource(ClassifiedImage newImage) {
-		if (content != null)
+		if (lease != null)
+			release();
+		else if (content != null)
 			content.flushLoadedImage();
 		content = newImage;
 		if (newImage != null) {
-			icon.setImage(content.getLoadedImage().getImage());
+			source = content.getLoadedImage().getImage();
+			scaled = null;
+			icon.setImage(source);
 			this.setSize(icon.getIconWidth(), icon.getIconHeight());
 		}
 	}
 
+	/**
+	 * Makes this DraggableImage show the image of a lease, releasing the lease on
+	 * the image it showed before. This DraggableImage takes over the new lease.
+	 * 
+	 * @param newLease lease on the new image to show
+	 */
+	public void setSource(ImageLease newLease) {
+		release();
+		lease = newLease;
+		if (newLease != null) {
+			content = newLease.getImage();
+			source = newLease.getIcon().getImage();
+			scaled = null;
+			icon.setImage(source);
+			this.setSize(icon.getIconWidth(), icon.getIconHeight());
+		}
+	}
+
+	/**
+	 * Shows an image that was prepared in the background, taking over its lease
+	 * and releasing the lease on the image shown before. Only swaps the displayed
+	 * image and moves it into place, so it is cheap enough to call on the Event
+	 * Dispatch Thread. A placeholder is shown with no ClassifiedImage.
+	 * 
+	 * @param prepared the image to show
+	 * @param center   the center at which to locate the image
+	 */
+	public void showPrepared(PreparedImage prepared, Point center) {
+		release();
+		lease = prepared.getLease();
+		content = prepared.getClassifiedImage();
+		scaled = prepared.getScaledImage();
+		source = lease == null ? scaled : lease.getIcon().getImage();
+		scaledSize = new Dimension(scaled.getWidth(), scaled.getHeight());
+
+		// Swap in the ready image and center it
+		icon.setImage(scaled);
+		this.setSize(scaledSize);
+		this.setLocation(center.x - scaledSize.width / 2, center.y - scaledSize.height / 2);
+		repaint();
+	}
+
+	/**
+	 * Releases the lease on the shown image, if there is one. Should be called once
+	 * this DraggableImage stops showing its image.
+	 */
+	public void release() {
+		if (lease != null) {
+			lease.release();
+			lease = null;
+		}
+	}
+
 	/**
 	 * Retrieves this DraggableImage's ClassifiedImage
 	 * 
@@ -116,76 +197,54 @@ public class DraggableImage extends JLabel {
 		return content;
 	}
 
+	/**
+	 * Makes this DraggableImage show the image of another DraggableImage, releasing
+	 * the lease on the image it showed before. If the other DraggableImage holds a
+	 * lease on its image, this DraggableImage takes it over.
+	 * 
+	 * @param other the DraggableImage to take the image of
+	 */
 	public void transferData(DraggableImage other) {
+		release();
 		this.content = other.content;
+		this.lease = other.lease;
+		other.lease = null;
+		this.source = other.source;
+		this.scaled = other.scaled;
+		this.scaledSize = other.scaledSize;
 		this.icon.setImage(other.icon.getImage());
 	}
 
 	/**
 	 * If the ClassifiedImage content of this DraggableImage is not null, will
-	 * resize the image to fit within a Category Panel
+	 * resize the image to fit within a Category Panel. The image is scaled once
+	 * into a display-ready BufferedImage, and kept for as long as it is fit to the
+	 * same size, so that repainting while dragging only copies pixels. Scaling
+	 * runs on the calling thread, so the game shows images prepared by its
+	 * ImageBuffer rather than fitting them on the Event Dispatch Thread.
 	 * 
 	 * @param maxSize the maximum size to allow the image to take up
 	 * @param center the center at which to locate the fit image
 	 */
 	public void fitImage(Dimension maxSize, Point center) {
-		if (content == null)
+		if (content == null || source == null)
 			return;
 
-//		BufferedImage scaled = ensureImageWithin(content.getLoadedImage(), (BufferedImage) icon.getImage(),
-//				maxSize);
-
-		// Get the current Dimension of the image
-		Dimension currentSize = new Dimension(icon.getIconWidth(),
-				icon.getIconHeight()); // TODO: Try removing cast and using
-																// ImageIcon.getIconWidth() and ...Height()
+		// Fit the source image within the maximum category fill percentage
+		Dimension destinationSize = ImageScaler.fitSize(source.getWidth(null), source.getHeight(null), maxSize,
+				MAX_IMAGE_RATIO);
 
-		// Figure out what ratio we need to scale it by
-		double scaleRatio = 1.0;
-
-		// First, if it's smaller than the ideal size, scale it up
-		if (currentSize.getWidth() * scaleRatio < maxSize.getWidth()) {
-			scaleRatio *= maxSize.getWidth() / (currentSize.getWidth() * scaleRatio);
-		}
-		if (currentSize.getHeight() * scaleRatio < maxSize.getHeight()) {
-			scaleRatio *= maxSize.getWidth() / (currentSize.getHeight() * scaleRatio);
+		// Scale from the source image, unless it was already scaled to this size
+		if (scaled == null || !destinationSize.equals(scaledSize)) {
+			ImageScaleEvent event = new ImageScaleEvent();
+			event.begin();
+			scaled = ImageScaler.scale(source, destinationSize.width, destinationSize.height);
+			scaledSize = destinationSize;
+			event.finish(content.getName(), source, destinationSize);
 		}
-		// Next, if it's larger than the ideal size, shrink it down
-		if (currentSize.getWidth() * scaleRatio > maxSize.getWidth()) {
-			scaleRatio *= maxSize.getWidth() / (currentSize.getWidth() * scaleRatio);
-		}
-		if (currentSize.getHeight() * scaleRatio > maxSize.getHeight()) {
-			scaleRatio *= maxSize.getHeight() / (currentSize.getHeight() * scaleRatio);
-		}
-
-		// If the scale ratio is 1, then we don't need to make a new BufferedImage
-		if (scaleRatio - 1.0 < 0.01 && scaleRatio - 1.0 > -0.01) {
-			return;
-		} else {
-			// Otherwise we're gonna have to scale from the source image
-			// Multiply the ratio by the difference between current scaling and source size
-//			scaleRatio *= currentSize.getWidth() / content.getLoadedImage().getIconWidth();
-		}
-		
-		// Scale down by the maximum category fill percentage
-		scaleRatio *= MAX_IMAGE_RATIO;
-
-		// Scale ratio should be correctly calculated now
-
-		// Create new Dimension that the image will be scaled to
-		Dimension destinationSize = new Dimension((int) (currentSize.getWidth() * scaleRatio),
-				(int) (currentSize.getHeight() * scaleRatio));
-
-		// Create new BufferedImage
-		Image scaledImage = new BufferedImage((int) destinationSize.getWidth(), (int) destinationSize.getHeight(),
-				BufferedImage.TYPE_INT_ARGB);
-
-		// Apply transformation to image
-		scaledImage = content.getLoadedImage().getImage().getScaledInstance(destinationSize.width,
-				destinationSize.width, Image.SCALE_FAST);
 
-		// Set image and update minimum size
-		icon.setImage(scaledImage);
+		// Set image and update size
+		icon.setImage(scaled);
 		this.setSize(destinationSize);
 
 		// Calculate desired location with center point and this object's width and
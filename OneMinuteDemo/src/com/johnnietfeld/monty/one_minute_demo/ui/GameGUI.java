@@ -17,7 +17,13 @@ import java.awt.event.ComponentEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
@@ -27,13 +33,15 @@ import javax.swing.JPanel;
 import javax.swing.JTextArea;
 import javax.swing.OverlayLayout;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.Timer;
 import javax.swing.border.Border;
 
 import com.johnnietfeld.monty.one_minute_demo.model.data.Category;
-import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
 import com.johnnietfeld.monty.one_minute_demo.model.manager.Game;
 import com.johnnietfeld.monty.one_minute_demo.model.manager.ImageBuffer;
+import com.johnnietfeld.monty.one_minute_demo.model.manager.ImageLifecycle;
+import com.johnnietfeld.monty.one_minute_demo.model.manager.PreparedImage;
 
 public class GameGUI extends JPanel {
 
@@ -53,6 +61,14 @@ public class GameGUI extends JPanel {
 	private static final int MAX_WIDTH = 1000;
 	/** Maximum GUI height */
 	private static final int MAX_HEIGHT = 1000;
+	/** Fewest images the buffer keeps loaded ahead of the player */
+	private static final int MIN_BUFFER = 2;
+	/** Most images the buffer keeps loaded ahead of the player */
+	private static final int MAX_BUFFER = 12;
+	/** How long a background wait for the next image blocks before checking whether the game ended */
+	private static final long IMAGE_WAIT_MILLIS = 250;
+	/** Logger for problems the player is not shown */
+	private static final Logger LOGGER = Logger.getLogger(GameGUI.class.getName());
 
 	// Instance variables
 
@@ -114,6 +130,15 @@ public class GameGUI extends JPanel {
 		// Set window title, fill screen and center, exit on close
 		gui = new JFrame(TITLE_STRING);
 		gui.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		gui.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				// Stop loading images for a game that is being closed
+				if (buffer != null) {
+					buffer.shutdown();
+				}
+			}
+		});
 		Dimension halfScreen = new Dimension(screenSize.width / 2, screenSize.height / 2);
 		gui.setMinimumSize(new Dimension(MIN_WIDTH, MIN_HEIGHT));
 		gui.setPreferredSize(min(halfScreen, new Dimension(MAX_WIDTH, MAX_HEIGHT)));
@@ -153,26 +178,123 @@ public class GameGUI extends JPanel {
 		gui.pack();
 		gui.setLocationRelativeTo(null);
 
-		// Initialize the Image Buffer with 5 elements
-		buffer = new ImageBuffer(5, game, cp.getCurrentCategorySize(), cp.getImageCenter());
+		// Initialize the Image Buffer, which adapts its depth to the player's pace
+		buffer = new ImageBuffer(MIN_BUFFER, MAX_BUFFER, new ImageLifecycle(game), cp.getCurrentCategorySize(),
+				cp.getImageCenter());
 
-		// Load first element into DraggableImage
-		ClassifiedImage nextImage = game.nextImage();
-		di.transferData(new DraggableImage(nextImage));
-//		di.transferData(buffer.nextImage());
-//		buffer.prepareImage();
-		Point centerPoint = cp.getImageCenter();
-		centerPoint.translate(0, hp.getHeight());
-		di.fitImage(cp.getCurrentCategorySize(), centerPoint);
 		di.addMouseListener(dl);
 		di.addMouseMotionListener(dl);
 
+		// Prepare images for the new category size whenever the window is resized.
+		// Component events are delivered on the Event Dispatch Thread.
+		cp.addComponentListener(new ComponentAdapter() {
+			@Override
+			public void componentResized(ComponentEvent e) {
+				fitToCategorySize();
+			}
+		});
+
 //		ImageResizer resizer = new ImageResizer();
 //		gui.addComponentListener(resizer);
 //		gui.addMouseListener(resizer);
-		// Run update on ClassifyPanel to use first image
 		gui.setVisible(true);
-		timer.start();
+		// Start the game once the buffer has prepared the first image
+		awaitNextImage(true);
+	}
+
+	/**
+	 * Shows the next image if the buffer has one ready. Otherwise shows the
+	 * placeholder, and swaps in the next image once it is ready.
+	 */
+	private void showNextImage() {
+		PreparedImage next = buffer.pollImage();
+		if (next == null) {
+			di.showPrepared(buffer.getPlaceholder(), getImageCenter());
+			awaitNextImage(false);
+			return;
+		}
+		di.showPrepared(next, getImageCenter());
+		// Tell the Image Loader to prepare another image
+		buffer.prepareImage();
+	}
+
+	/**
+	 * Waits in the background for the buffer to prepare the next image, then shows
+	 * it on the Event Dispatch Thread. Gives up if the game ends first.
+	 * 
+	 * @param startTimer true to start the timer once the image is shown, for the
+	 *                   first image of the game
+	 */
+	private void awaitNextImage(final boolean startTimer) {
+		new SwingWorker<PreparedImage, Void>() {
+			@Override
+			protected PreparedImage doInBackground() throws Exception {
+				PreparedImage next = null;
+				while (next == null && !buffer.isShutdown()) {
+					next = buffer.takeImage(IMAGE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+				}
+				return next;
+			}
+
+			@Override
+			protected void done() {
+				try {
+					PreparedImage next = get();
+					if (next == null) {
+						return;
+					}
+					// The game may have ended while the image was on its way
+					if (buffer.isShutdown()) {
+						next.release();
+						return;
+					}
+					di.showPrepared(next, getImageCenter());
+					buffer.prepareImage();
+					if (startTimer) {
+						timer.start();
+					}
+				} catch (InterruptedException e) {
+					// done() runs once the result is ready, so this never waits
+					Thread.currentThread().interrupt();
+				} catch (ExecutionException e) {
+					// Keep showing the placeholder rather than nothing
+					LOGGER.log(Level.WARNING, "Stopped waiting for the next image", e.getCause());
+					di.showPrepared(buffer.getPlaceholder(), getImageCenter());
+				}
+			}
+		}.execute();
+	}
+
+	/**
+	 * Makes the buffer prepare images at the current category size, and keeps the
+	 * shown image centered. The shown image is not scaled again here, so resizing
+	 * never scales on the Event Dispatch Thread; it keeps its size until the next
+	 * prepared image replaces it. Images already prepared keep the size they were
+	 * prepared at until they are shown. Must be called on the Event Dispatch
+	 * Thread.
+	 */
+	private void fitToCategorySize() {
+		Dimension size = cp.getCurrentCategorySize();
+		if (size.width <= 0 || size.height <= 0) {
+			return;
+		}
+		buffer.setPreferredSize(size);
+		buffer.setCenter(cp.getImageCenter());
+		// Keep showing the current image, centered in the resized panel
+		Point center = getImageCenter();
+		di.setLocation(center.x - di.getWidth() / 2, center.y - di.getHeight() / 2);
+	}
+
+	/**
+	 * Gets the point at which the draggable image is centered, in the coordinates
+	 * of the drag panel
+	 * 
+	 * @return the center of the classify panel's image area
+	 */
+	private Point getImageCenter() {
+		Point centerPoint = cp.getImageCenter();
+		centerPoint.translate(0, hp.getHeight());
+		return centerPoint;
 	}
 	
 	private void setupTimer() {
@@ -184,6 +306,10 @@ public class GameGUI extends JPanel {
 				if (time == 0) {
 					// Stop the timer
 					timer.stop();
+					// Stop loading images nobody will see
+					buffer.shutdown();
+					// Release the image that is no longer shown
+					di.release();
 					// Hide the category panel
 					// Disable the panels
 					dragPanel.setEnabled(false);
@@ -501,22 +627,20 @@ public class GameGUI extends JPanel {
 			if (hoveredCategory != null) {
 				// Set the hovered category's border back to normal
 				hoveredCategory.setBorder(bdrGray);
-				// Process the scoring of the image by the selected Category
-				game.scoreImage(di.getClassifiedImage(), hoveredCategory.getCategory());
-				// Update score
-				hp.updateScore(game.getScore());
-				// Load next image from Game
-				DraggableImage image = buffer.nextImage();
-				di.transferData(image);
-
-				// TODO: Modified herePoint centerPoint = cp.getImageCenter();
-				Point centerPoint = cp.getImageCenter();
-				centerPoint.translate(0, hp.getHeight());
-				di.fitImage(cp.getCurrentCategorySize(), centerPoint); // TODO: Needs to be scaled down category size
+				// The placeholder shown while the next image loads can't be scored, put it back
+				if (di.getClassifiedImage() == null) {
+					Point center = getImageCenter();
+					di.setLocation(center.x - di.getWidth() / 2, center.y - di.getHeight() / 2);
+				} else {
+					// Process the scoring of the image by the selected Category
+					game.scoreImage(di.getClassifiedImage(), hoveredCategory.getCategory());
+					// Update score
+					hp.updateScore(game.getScore());
+					// Swap in the next image, already decoded and scaled in the background
+					showNextImage();
+				}
 				// Clear hovered category from Dragger memory
 				hoveredCategory = null;
-				// Tell the Image Loader to prepare another image
-				buffer.prepareImage();
 			}
 		}
 		
@@ -0,0 +1,175 @@
+package com.johnnietfeld.monty.one_minute_demo.ui;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.johnnietfeld.monty.one_minute_demo.model.data.Category;
+import com.johnnietfeld.monty.one_minute_demo.model.io.IOExecution;
+import com.johnnietfeld.monty.one_minute_demo.model.io.OneMinuteDemoIO;
+import com.johnnietfeld.monty.one_minute_demo.model.manager.Game;
+import com.johnnietfeld.monty.one_minute_demo.model.manager.ImageBuffer;
+import com.johnnietfeld.monty.one_minute_demo.model.manager.ImageLifecycle;
+import com.johnnietfeld.monty.one_minute_demo.model.manager.PreparedImage;
+
+/**
+ * Runs a game without a window, with a synthetic player that classifies images
+ * as fast as the ImageBuffer can prepare them. Measures how many images per
+ * second the loading pipeline delivers, the decode and scale latencies, and how
+ * often and how long the player starved for images, to size hardware for
+ * running the game.
+ * 
+ * Started with OneMinuteDemoGUI --headless GAME_FOLDER, followed by options:
+ * <ul>
+ * <li>--seconds N: how long to play, 10 by default</li>
+ * <li>--buffer N: number of images kept prepared, 5 by default</li>
+ * <li>--max-buffer N: lets the number of images kept prepared adapt between
+ * --buffer and N, the same as --buffer by default</li>
+ * <li>--budget-mb N: megabytes of pixels the buffer may hold, a quarter of the
+ * maximum heap by default</li>
+ * <li>--io MODE: platform or virtual, how image files are read, see
+ * IOExecution</li>
+ * <li>--size WxH: category panel size images are fit to, 300x200 by
+ * default</li>
+ * <li>--seed N: seed the image order is shuffled from, to replay the same
+ * images in the same order, the game's own seed by default</li>
+ * </ul>
+ * 
+ * @author Melody Griesen
+ *
+ */
+public class HeadlessDemo {
+
+	/** Default number of seconds to play */
+	private static final int DEFAULT_SECONDS = 10;
+	/** Default number of images kept prepared, as in the GUI */
+	private static final int DEFAULT_BUFFER = 5;
+	/** Default category panel size */
+	private static final Dimension DEFAULT_SIZE = new Dimension(300, 200);
+	/** How long the player waits for an image before checking whether to stop */
+	private static final long WAIT_MILLIS = 100;
+
+	/**
+	 * Plays a game headless and prints a report
+	 * 
+	 * @param args the game folder, followed by options, see the class description
+	 * @throws InterruptedException if interrupted while playing
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		if (args.length == 0) {
+			System.err.println("Usage: OneMinuteDemoGUI --headless GAME_FOLDER [--seconds N] [--buffer N]"
+					+ " [--max-buffer N] [--budget-mb N] [--io platform|virtual] [--size WxH] [--seed N]");
+			System.exit(2);
+		}
+		File folder = new File(args[0]);
+		int seconds = DEFAULT_SECONDS;
+		int bufferSize = DEFAULT_BUFFER;
+		int maxBuffer = -1;
+		long byteBudget = ImageBuffer.DEFAULT_BYTE_BUDGET;
+		Dimension size = DEFAULT_SIZE;
+		Long seed = null;
+		for (int i = 1; i < args.length; i += 2) {
+			if (i + 1 >= args.length) {
+				throw new IllegalArgumentException("Missing value for " + args[i]);
+			}
+			switch (args[i]) {
+			case "--seconds":
+				seconds = Integer.parseInt(args[i + 1]);
+				break;
+			case "--buffer":
+				bufferSize = Integer.parseInt(args[i + 1]);
+				break;
+			case "--max-buffer":
+				maxBuffer = Integer.parseInt(args[i + 1]);
+				break;
+			case "--io":
+				IOExecution.setMode(IOExecution.parseMode(args[i + 1]));
+				break;
+			case "--budget-mb":
+				byteBudget = Long.parseLong(args[i + 1]) * 1024 * 1024;
+				break;
+			case "--size":
+				String[] parts = args[i + 1].split("x");
+				size = new Dimension(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+				break;
+			case "--seed":
+				seed = Long.parseLong(args[i + 1]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+
+		// Load the game the same way the GUI does
+		long loadStart = System.nanoTime();
+		Game game = OneMinuteDemoIO.readGameFolder(folder);
+		long loadNanos = System.nanoTime() - loadStart;
+
+		// Keep images coming for the whole run
+		game.setCycle(true);
+		game.setRandomizeCycle(true);
+		if (seed != null) {
+			game.setSeed(seed);
+		}
+
+		play(game, seconds, bufferSize, Math.max(bufferSize, maxBuffer), byteBudget, size, loadNanos);
+	}
+
+	/**
+	 * Plays a game with the synthetic player and prints a report
+	 * 
+	 * @param game       the game to play
+	 * @param seconds    how long to play
+	 * @param bufferSize the fewest images to keep prepared
+	 * @param maxBuffer  the most images to keep prepared
+	 * @param byteBudget the most bytes of pixels the buffer may hold
+	 * @param size       the category panel size images are fit to
+	 * @param loadNanos  time taken to load the game folder
+	 * @throws InterruptedException if interrupted while playing
+	 */
+	private static void play(Game game, int seconds, int bufferSize, int maxBuffer, long byteBudget,
+			Dimension size, long loadNanos) throws InterruptedException {
+		ArrayList<Category> categories = game.getCategories();
+		// Seed the player from the game, so a replay also places images the same way
+		Random player = new Random(game.getSeed());
+		ImageBuffer buffer = new ImageBuffer(bufferSize, maxBuffer, byteBudget, new ImageLifecycle(game), size,
+				new Point(size.width / 2, size.height / 2));
+
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+		long classified = 0;
+		while (System.nanoTime() < deadline) {
+			PreparedImage next = buffer.takeImage(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+			if (next == null) {
+				continue;
+			}
+			// Classify the image into a random category, then ask for another
+			game.scoreImage(next.getClassifiedImage(), categories.get(player.nextInt(categories.size())));
+			next.release();
+			buffer.prepareImage();
+			++classified;
+		}
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		buffer.shutdown();
+
+		System.out.println("Game folder load:  " + String.format("%.1f ms", loadNanos / 1e6));
+		System.out.println("Images in game:    " + game.available());
+		System.out.println("Buffer depth:      " + bufferSize + " to " + maxBuffer + ", ended at "
+				+ buffer.getTargetDepth());
+		System.out.println("Byte budget:       " + String.format("%.1f MB", byteBudget / 1048576.0));
+		System.out.println("I/O threads:       " + (IOExecution.usesVirtualThreads() ? "virtual" : "platform"));
+		System.out.println("Fit size:          " + size.width + "x" + size.height);
+		System.out.println("Seed:              " + game.getSeed());
+		System.out.println("Images classified: " + classified + " in " + String.format("%.1f s", elapsed));
+		System.out.println("Throughput:        " + String.format("%.1f images/s", classified / elapsed));
+		System.out.println("Decode latency:    " + buffer.getDecodeLatency());
+		System.out.println("Scale latency:     " + buffer.getScaleLatency());
+		System.out.println("Buffer starved:    " + buffer.getStarvationCount() + " times");
+		System.out.println("Starvation time:   " + buffer.getStarvationTime());
+		System.out.println("Failed loads:      " + buffer.getFailedCount());
+	}
+
+}
@@ -4,9 +4,11 @@
 package com.johnnietfeld.monty.one_minute_demo.ui;
 
 import java.io.File;
+import java.util.Arrays;
 
 import javax.swing.JFileChooser;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 import com.johnnietfeld.monty.one_minute_demo.model.io.OneMinuteDemoIO;
 import com.johnnietfeld.monty.one_minute_demo.model.manager.Game;
@@ -27,9 +29,17 @@ public class OneMinuteDemoGUI extends JPanel {
 	/**
 	 * Initializes the program by making a
 	 * 
+	 * Run with --headless GAME_FOLDER to play the game without a window and
+	 * measure the image pipeline instead, see HeadlessDemo.
+	 * 
 	 * @param args commandline arguments
+	 * @throws InterruptedException if a headless run is interrupted
 	 */
-	public static void main(String[] args) {
+	public static void main(String[] args) throws InterruptedException {
+		if (args.length > 0 && args[0].equals("--headless")) {
+			HeadlessDemo.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 		new OneMinuteDemoGUI();
 	}
 
@@ -45,7 +55,14 @@ public class OneMinuteDemoGUI extends JPanel {
 			}
 		}
 
-		new GameGUI(game);
+		// Build the game window on the Event Dispatch Thread
+		final Game toPlay = game;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				new GameGUI(toPlay);
+			}
+		});
 	}
 
 	private File getLoadFile() {
@@ -0,0 +1,45 @@
+package com.johnnietfeld.monty.one_minute_demo.model.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CategoryIndexTest {
+
+	@Test
+	public void testIntern() {
+		CategoryIndex test = new CategoryIndex();
+
+		// Assert names are given dense ordinals in the order first seen
+		Category hot = test.intern("Hot");
+		Category cold = test.intern("Cold");
+		assertEquals(0, hot.getOrdinal());
+		assertEquals(1, cold.getOrdinal());
+		assertSame(test, hot.getIndex());
+		assertEquals(2, test.size());
+
+		// Assert interning a name again gives the same instance
+		assertSame(hot, test.intern("Hot"));
+		assertSame(cold, test.get(1));
+		assertEquals(2, test.size());
+
+		// Assert Categories from outside the index are looked up by name
+		Category outside = new Category("Hot");
+		assertNull(outside.getIndex());
+		assertEquals(-1, outside.getOrdinal());
+		assertSame(hot, test.intern(outside));
+		assertEquals(0, test.ordinalOf(outside));
+		assertEquals(-1, test.ordinalOf(new Category("Warm")));
+
+		// Assert interned Categories still equal Categories of the same name
+		assertTrue(hot.equals(outside));
+		assertTrue(outside.equals(hot));
+		assertFalse(hot.equals(cold));
+		assertTrue(hot.equals(new CategoryIndex().intern("Hot")));
+	}
+
+}
@@ -6,10 +6,18 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
 import javax.swing.ImageIcon;
 
 import org.junit.Test;
 
+import com.johnnietfeld.monty.one_minute_demo.model.io.ThumbnailCache;
+
 public class ClassifiedImageTest {
 
 	/** String of the file path of the Image used for testing */
@@ -92,6 +100,67 @@ public class ClassifiedImageTest {
 		assertFalse(test.scoreCategory(new Category("DIFFERENT")));
 	}
 
+	@Test
+	public void testLoadImageTargetSize() throws IOException {
+		// Use a fresh thumbnail cache for this test
+		File cacheFolder = Files.createTempDirectory("omg-thumbnails").toFile();
+		ThumbnailCache previous = ThumbnailCache.getDefault();
+		ThumbnailCache.setDefault(new ThumbnailCache(cacheFolder));
+		try {
+			ClassifiedImage test = new ClassifiedImage(IMAGE_PATH_STRING, CATEGORY, NAME);
+			Dimension target = new Dimension(100, 50);
+
+			// Assert the image is scaled down to fit the target size
+			test.loadImage(target);
+			ImageIcon scaled = test.getLoadedImage();
+			assertEquals(50, scaled.getIconWidth());
+			assertEquals(50, scaled.getIconHeight());
+			// Assert the full size of the image was recorded
+			assertEquals(500, test.getWidth());
+			assertEquals(500, test.getHeight());
+
+			// Assert the scaled copy was stored in the cache, next to the stamp of its
+			// source file, and is used again
+			assertEquals(2, cacheFolder.listFiles().length);
+			test.flushLoadedImage();
+			test.loadImage(target);
+			assertEquals(50, test.getLoadedImage().getIconWidth());
+			assertEquals(2, cacheFolder.listFiles().length);
+		} finally {
+			ThumbnailCache.setDefault(previous);
+			for (File entry : cacheFolder.listFiles()) {
+				entry.delete();
+			}
+			cacheFolder.delete();
+		}
+	}
+
+	@Test
+	public void testDecodeImage() {
+		ClassifiedImage test = new ClassifiedImage(IMAGE_PATH_STRING, CATEGORY, NAME);
+		assertFalse(test.hasDimensions());
+
+		// Assert the image is decoded with subsampling, but still covers the target
+		BufferedImage decoded = test.decodeImage(new Dimension(120, 120));
+		assertEquals(125, decoded.getWidth());
+		assertEquals(125, decoded.getHeight());
+		// Assert the full size was read from the header
+		assertTrue(test.hasDimensions());
+		assertEquals(500, test.getWidth());
+
+		// Assert images smaller than the target are decoded at full size
+		decoded = test.decodeImage(new Dimension(1000, 1000));
+		assertEquals(500, decoded.getWidth());
+
+		// Assert invalid decode of a missing file
+		try {
+			new ClassifiedImage("test-files/missing.jpg", CATEGORY, NAME).decodeImage(new Dimension(10, 10));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// Correct exception thrown
+		}
+	}
+
 	@Test
 	public void testToString() {
 		ClassifiedImage test = new ClassifiedImage(IMAGE_PATH_STRING, CATEGORY, NAME);
@@ -0,0 +1,101 @@
+package com.johnnietfeld.monty.one_minute_demo.model.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class DecodedImageCacheTest {
+
+	/** Target size used for cached test images */
+	private static final Dimension TARGET = new Dimension(10, 10);
+	/** Bytes held by one 10x10 ARGB test image */
+	private static final long IMAGE_BYTES = 10 * 10 * 4;
+
+	/**
+	 * Makes a small image for testing
+	 * 
+	 * @return a 10x10 ARGB image
+	 */
+	private static BufferedImage makeImage() {
+		return new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	@Test
+	public void testDecodedImageCache() {
+		// Assert invalid negative budget
+		try {
+			new DecodedImageCache(-1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// Correct exception thrown
+		}
+
+		DecodedImageCache test = new DecodedImageCache(2 * IMAGE_BYTES);
+		assertEquals(0, test.size());
+		assertEquals(0, test.getBytes());
+		assertEquals(IMAGE_BYTES, DecodedImageCache.byteSize(makeImage()));
+	}
+
+	@Test
+	public void testGetPut() {
+		DecodedImageCache test = new DecodedImageCache(2 * IMAGE_BYTES);
+		BufferedImage image = makeImage();
+
+		// Assert a miss before the image is added
+		assertNull(test.get("a", TARGET));
+		assertEquals(1, test.getMisses());
+
+		// Assert a hit after the image is added, only at the same target size
+		test.put("a", TARGET, image);
+		assertTrue(image == test.get("a", TARGET));
+		assertEquals(1, test.getHits());
+		assertNull(test.get("a", null));
+		assertNull(test.get("a", new Dimension(20, 20)));
+		assertEquals(IMAGE_BYTES, test.getBytes());
+
+		// Assert replacing an image does not count its bytes twice
+		test.put("a", TARGET, makeImage());
+		assertEquals(1, test.size());
+		assertEquals(IMAGE_BYTES, test.getBytes());
+	}
+
+	@Test
+	public void testEviction() {
+		DecodedImageCache test = new DecodedImageCache(2 * IMAGE_BYTES);
+		test.put("a", TARGET, makeImage());
+		test.put("b", TARGET, makeImage());
+
+		// Use a, so that b is the least recently used
+		test.get("a", TARGET);
+
+		// Assert adding a third image evicts b
+		test.put("c", TARGET, makeImage());
+		assertEquals(2, test.size());
+		assertEquals(2 * IMAGE_BYTES, test.getBytes());
+		assertNull(test.get("b", TARGET));
+		assertTrue(test.get("a", TARGET) != null);
+		assertTrue(test.get("c", TARGET) != null);
+
+		// Assert an image larger than the budget is not cached
+		test.put("big", TARGET, new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB));
+		assertNull(test.get("big", TARGET));
+		assertEquals(2, test.size());
+
+		// Assert shrinking the budget evicts images
+		test.setByteBudget(IMAGE_BYTES);
+		assertEquals(1, test.size());
+		assertEquals(IMAGE_BYTES, test.getBytes());
+
+		// Assert clearing empties the cache
+		test.clear();
+		assertEquals(0, test.size());
+		assertEquals(0, test.getBytes());
+	}
+
+}
@@ -0,0 +1,78 @@
+package com.johnnietfeld.monty.one_minute_demo.model.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class ImageScalerTest {
+
+	@Test
+	public void testFitSize() {
+		// Assert a large image is shrunk to fill the fraction of the bounds
+		assertEquals(new Dimension(75, 50), ImageScaler.fitSize(300, 200, new Dimension(100, 100), 0.75));
+		// Assert a small image is enlarged to fill the fraction of the bounds
+		assertEquals(new Dimension(50, 100), ImageScaler.fitSize(10, 20, new Dimension(200, 100), 1.0));
+
+		// Assert invalid empty image
+		try {
+			ImageScaler.fitSize(0, 20, new Dimension(100, 100), 1.0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// Correct exception thrown
+		}
+	}
+
+	@Test
+	public void testScale() {
+		BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.RED);
+		g.fillRect(0, 0, 400, 300);
+		g.dispose();
+
+		// Assert a large reduction produces a display-ready image of the exact size
+		BufferedImage scaled = ImageScaler.scale(image, 37, 29);
+		assertEquals(37, scaled.getWidth());
+		assertEquals(29, scaled.getHeight());
+		assertEquals(BufferedImage.TYPE_INT_RGB, scaled.getType());
+		assertEquals(Color.RED.getRGB(), scaled.getRGB(18, 14));
+
+		// Assert an enlargement produces the exact size
+		BufferedImage enlarged = ImageScaler.scale(scaled, 100, 80);
+		assertEquals(100, enlarged.getWidth());
+		assertEquals(80, enlarged.getHeight());
+
+		// Assert a display-ready image at the right size is not copied
+		assertTrue(scaled == ImageScaler.scale(scaled, 37, 29));
+
+		// Assert invalid empty size
+		try {
+			ImageScaler.scale(image, 0, 10);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// Correct exception thrown
+		}
+	}
+
+	@Test
+	public void testScaleToFit() {
+		BufferedImage image = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+
+		// Assert an image that fits is returned unchanged
+		assertTrue(image == ImageScaler.scaleToFit(image, new Dimension(300, 300)));
+
+		// Assert a larger image is shrunk, keeping its aspect ratio and transparency
+		BufferedImage scaled = ImageScaler.scaleToFit(image, new Dimension(50, 50));
+		assertEquals(50, scaled.getWidth());
+		assertEquals(25, scaled.getHeight());
+		assertEquals(BufferedImage.TYPE_INT_ARGB, scaled.getType());
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.johnnietfeld.monty.one_minute_demo.model.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ImageTableTest {
+
+	/** Directory prefix used for testing */
+	private static final String PREFIX = "games" + File.separator + "hot" + File.separator;
+
+	@Test
+	public void testAdd() {
+		ImageTable test = new ImageTable(new CategoryIndex());
+		Category hot = test.getCategoryIndex().intern("Hot");
+		Category cold = new Category("Cold");
+
+		// Add enough images to grow every column, with names that are not ASCII
+		for (int i = 0; i < 100; ++i) {
+			assertEquals(i, test.add(PREFIX, "Bild-" + i + "-\u00e4\u00f6\u00fc.jpg", i % 2 == 0 ? hot : cold,
+					i + 1, i + 2, i * 1000L));
+		}
+		assertEquals(100, test.size());
+
+		// Assert every column reads back as written
+		for (int i = 0; i < 100; ++i) {
+			String name = "Bild-" + i + "-\u00e4\u00f6\u00fc.jpg";
+			assertEquals(name, test.getName(i));
+			assertEquals(PREFIX + name, test.getLocation(i));
+			assertEquals(i % 2, test.getCategoryOrdinal(i));
+			assertEquals(i + 1, test.getWidth(i));
+			assertEquals(i + 2, test.getHeight(i));
+			assertEquals(i * 1000L, test.getLength(i));
+		}
+
+		// Assert Categories from outside the index were interned into it
+		assertSame(hot, test.getCategory(0));
+		assertEquals(cold, test.getCategory(1));
+		assertSame(test.getCategoryIndex(), test.getCategory(1).getIndex());
+
+		// Assert images are made on demand, with their dimensions known, and the
+		// same instance is returned while it is in use
+		ClassifiedImage image = test.get(3);
+		assertEquals(PREFIX + test.getName(3), image.getImageLocation());
+		assertEquals(test.getName(3), image.getName());
+		assertEquals(cold, image.getCategory());
+		assertEquals(4, image.getWidth());
+		assertEquals(5, image.getHeight());
+		assertSame(image, test.get(3));
+		assertNotSame(image, test.get(4));
+
+		try {
+			test.get(100);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			// Correct exception thrown
+		}
+	}
+
+	@Test
+	public void testFillDimensions() {
+		ImageTable test = new ImageTable(new CategoryIndex());
+		File file = new File("test-files/a.jpg");
+		test.add(file.getParentFile().getAbsolutePath() + File.separator, file.getName(), new Category("Cat"), 0, 0,
+				file.length());
+
+		// Assert the dimensions stay unknown until the image is decoded
+		ClassifiedImage image = test.get(0);
+		assertFalse(image.hasDimensions());
+		assertEquals(0, test.getWidth(0));
+
+		// Assert decoding the image fills them in, in the table too
+		image.decodeImage(new Dimension(50, 50), null);
+		assertEquals(500, image.getWidth());
+		assertEquals(500, test.getWidth(0));
+		assertEquals(500, test.getHeight(0));
+		assertEquals(500, test.get(0).getWidth());
+	}
+
+	@Test
+	public void testOf() {
+		Category hot = new Category("Hot");
+		List<ClassifiedImage> images = new ArrayList<ClassifiedImage>();
+		for (int i = 0; i < 20; ++i) {
+			images.add(new ClassifiedImage(PREFIX + i + ".jpg", i < 10 ? hot : new Category("Cold"), i + ".jpg"));
+		}
+		ImageTable test = ImageTable.of(images);
+
+		// Assert the same instances are returned, in list order
+		assertEquals(20, test.size());
+		for (int i = 0; i < 20; ++i) {
+			assertSame(images.get(i), test.get(i));
+			assertEquals(PREFIX + i + ".jpg", test.getLocation(i));
+			assertEquals(i < 10 ? 0 : 1, test.getCategoryOrdinal(i));
+		}
+		assertEquals(2, test.getCategoryIndex().size());
+
+		// Assert images all from one index share it, without adding to it
+		CategoryIndex shared = new CategoryIndex();
+		List<ClassifiedImage> interned = new ArrayList<ClassifiedImage>();
+		interned.add(new ClassifiedImage(PREFIX + "a.jpg", shared.intern("Hot"), "a.jpg"));
+		interned.add(new ClassifiedImage(PREFIX + "b.jpg", shared.intern("Cold"), "b.jpg"));
+		assertSame(shared, ImageTable.of(interned).getCategoryIndex());
+		assertEquals(2, shared.size());
+
+		// Assert mixing in a Category from elsewhere leaves the shared index alone
+		interned.add(new ClassifiedImage(PREFIX + "c.jpg", new Category("Warm"), "c.jpg"));
+		test = ImageTable.of(interned);
+		assertNotSame(shared, test.getCategoryIndex());
+		assertEquals(3, test.getCategoryIndex().size());
+		assertEquals(2, shared.size());
+	}
+
+}
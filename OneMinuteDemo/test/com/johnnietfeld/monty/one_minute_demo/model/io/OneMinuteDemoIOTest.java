@@ -0,0 +1,176 @@
+package com.johnnietfeld.monty.one_minute_demo.model.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.johnnietfeld.monty.one_minute_demo.model.data.Category;
+import com.johnnietfeld.monty.one_minute_demo.model.manager.Game;
+
+public class OneMinuteDemoIOTest {
+
+	/** Folder location of the bundled game used for testing */
+	private static final String GAME_LOCATION = "games/tropical-temperate";
+	/** Number of images in the bundled game */
+	private static final int GAME_IMAGES = 15;
+	/** Temporary games folder, holding copies of the bundled game */
+	private File gamesFolder;
+
+	/**
+	 * Copies the bundled game into a fresh temporary games folder before each
+	 * test, so that manifests written by tests never touch the bundled game.
+	 * 
+	 * @throws IOException if the game could not be copied
+	 */
+	@Before
+	public void setUp() throws IOException {
+		gamesFolder = Files.createTempDirectory("omg-games").toFile();
+		copyGame("b-game");
+		copyGame("a-game");
+	}
+
+	/**
+	 * Deletes the temporary games folder after each test
+	 * 
+	 * @throws IOException if the folder could not be deleted
+	 */
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> walk = Files.walk(gamesFolder.toPath())) {
+			walk.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	/**
+	 * Copies the bundled game into the temporary games folder
+	 * 
+	 * @param name the name of the copied game folder
+	 * @throws IOException if the game could not be copied
+	 */
+	private void copyGame(String name) throws IOException {
+		Path source = new File(GAME_LOCATION).toPath();
+		Path destination = new File(gamesFolder, name).toPath();
+		try (Stream<Path> walk = Files.walk(source)) {
+			for (Path path : (Iterable<Path>) walk::iterator) {
+				// Skip any manifest left behind in the bundled game
+				if (path.getFileName().toString().equals(GameManifest.MANIFEST_FILE_NAME)) {
+					continue;
+				}
+				Files.copy(path, destination.resolve(source.relativize(path)), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	@Test
+	public void testReadGameFolderManifest() throws IOException {
+		File gameFolder = new File(gamesFolder, "a-game");
+		File manifest = new File(gameFolder, GameManifest.MANIFEST_FILE_NAME);
+		assertFalse(manifest.exists());
+
+		// Assert a full scan writes a manifest
+		Game cold = OneMinuteDemoIO.readGameFolder(gameFolder);
+		assertEquals(GAME_IMAGES, cold.available());
+		assertTrue(manifest.isFile());
+
+		// Assert a warm read from the manifest gives the same game
+		Game warm = OneMinuteDemoIO.readGameFolder(gameFolder);
+		assertEquals(GAME_IMAGES, warm.available());
+		assertEquals(cold.getInstructions(), warm.getInstructions());
+		assertEquals(cold.getTime(), warm.getTime());
+		assertEquals(cold.doesCycle(), warm.doesCycle());
+		assertEquals(new HashSet<Category>(cold.getCategories()), new HashSet<Category>(warm.getCategories()));
+
+		// Assert adding an image makes the manifest stale
+		File category = new File(gameFolder, "Tropical");
+		File[] images = category.listFiles();
+		Files.copy(images[0].toPath(), new File(category, "added.jpg").toPath());
+		category.setLastModified(category.lastModified() + 2000);
+		assertEquals(GAME_IMAGES + 1, OneMinuteDemoIO.readGameFolder(gameFolder).available());
+
+		// Assert the manifest is not used when disabled
+		OneMinuteDemoIO.setUseManifest(false);
+		try {
+			assertEquals(GAME_IMAGES + 1, OneMinuteDemoIO.readGameFolder(gameFolder).available());
+		} finally {
+			OneMinuteDemoIO.setUseManifest(true);
+		}
+	}
+
+	@Test
+	public void testReadGameFolderOldManifest() throws IOException {
+		File gameFolder = new File(gamesFolder, "a-game");
+		File manifest = new File(gameFolder, GameManifest.MANIFEST_FILE_NAME);
+		OneMinuteDemoIO.readGameFolder(gameFolder);
+		byte[] written = Files.readAllBytes(manifest.toPath());
+
+		// Mark the manifest as written by the previous format, which had image dimensions
+		byte[] old = written.clone();
+		old[7] = 2;
+		Files.write(manifest.toPath(), old);
+
+		// Assert the old manifest is scanned over and replaced by the current format
+		assertEquals(GAME_IMAGES, OneMinuteDemoIO.readGameFolder(gameFolder).available());
+		assertEquals(written[7], Files.readAllBytes(manifest.toPath())[7]);
+		assertEquals(GAME_IMAGES, OneMinuteDemoIO.readGameFolder(gameFolder).available());
+	}
+
+	@Test
+	public void testReadGameFolderSeed() throws IOException {
+		File gameFolder = new File(gamesFolder, "a-game");
+		Files.write(new File(gameFolder, "properties.omg").toPath(), "\nseed=42".getBytes(),
+				StandardOpenOption.APPEND);
+
+		// Assert the seed is read from the properties file, and again from the manifest
+		Game cold = OneMinuteDemoIO.readGameFolder(gameFolder);
+		Game warm = OneMinuteDemoIO.readGameFolder(gameFolder);
+		assertEquals(42, cold.getSeed());
+		assertEquals(42, warm.getSeed());
+
+		// Assert both games deal the same images in the same order, across cycles
+		assertEquals(cold.peekImages(GAME_IMAGES * 3), warm.peekImages(GAME_IMAGES * 3));
+
+		// Assert a game without a seed gets one of its own
+		assertTrue(OneMinuteDemoIO.readGameFolder(new File(gamesFolder, "b-game")).getSeed() != 42);
+	}
+
+	@Test
+	public void testLoadGames() {
+		// Add a folder that is not a valid game
+		assertTrue(new File(gamesFolder, "c-broken").mkdir());
+
+		for (boolean parallel : new boolean[] { false, true }) {
+			GameLoadResult result = OneMinuteDemoIO.loadGames(gamesFolder, parallel);
+
+			// Assert both valid games were loaded
+			assertEquals(2, result.getGames().size());
+			for (Game game : result.getGames()) {
+				assertEquals(GAME_IMAGES, game.available());
+			}
+
+			// Assert the broken game folder was recorded as a failure
+			assertTrue(result.hasFailures());
+			assertEquals(1, result.getFailures().size());
+			assertEquals("c-broken", result.getFailures().get(0).getFolder().getName());
+		}
+
+		// Assert readGames returns all valid games and the broken folder
+		GameLoadResult result = OneMinuteDemoIO.readGames(gamesFolder);
+		assertEquals(2, result.getGames().size());
+		assertEquals(1, result.getFailures().size());
+	}
+
+}
@@ -0,0 +1,168 @@
+package com.johnnietfeld.monty.one_minute_demo.model.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ThumbnailCacheTest {
+
+	/** Image file copied to make source files */
+	private static final File IMAGE = new File("test-files/a.jpg");
+	/** Size images are cached at */
+	private static final Dimension TARGET = new Dimension(20, 20);
+	/** Temporary folder holding source files */
+	private File sourceFolder;
+	/** Temporary folder holding the cache */
+	private File cacheFolder;
+	/** Small image stored in the cache */
+	private BufferedImage scaled;
+
+	/**
+	 * Makes fresh temporary folders before each test
+	 * 
+	 * @throws IOException if they could not be made
+	 */
+	@Before
+	public void setUp() throws IOException {
+		sourceFolder = Files.createTempDirectory("omg-sources").toFile();
+		cacheFolder = Files.createTempDirectory("omg-thumbnails").toFile();
+		scaled = new BufferedImage(TARGET.width, TARGET.height, BufferedImage.TYPE_INT_RGB);
+	}
+
+	/**
+	 * Deletes the temporary folders after each test
+	 */
+	@After
+	public void tearDown() {
+		for (File folder : new File[] { sourceFolder, cacheFolder }) {
+			for (File file : folder.listFiles()) {
+				file.delete();
+			}
+			folder.delete();
+		}
+	}
+
+	/**
+	 * Copies the test image to a new source file
+	 * 
+	 * @param name the name of the source file
+	 * @return the source file
+	 * @throws IOException if it could not be copied
+	 */
+	private File copySource(String name) throws IOException {
+		File source = new File(sourceFolder, name);
+		Files.copy(IMAGE.toPath(), source.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		return source;
+	}
+
+	@Test
+	public void testThumbnailCache() {
+		// Assert invalid null directory and negative budget
+		try {
+			new ThumbnailCache(null);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// Correct exception thrown
+		}
+		try {
+			new ThumbnailCache(cacheFolder, -1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// Correct exception thrown
+		}
+		assertEquals(ThumbnailCache.DEFAULT_BYTE_BUDGET, new ThumbnailCache(cacheFolder).getByteBudget());
+	}
+
+	@Test
+	public void testReadWithoutHashing() throws IOException {
+		File source = copySource("one.jpg");
+		ThumbnailCache writer = new ThumbnailCache(cacheFolder);
+		assertNull(writer.read(source, TARGET));
+		writer.write(source, TARGET, scaled);
+		assertEquals(1, writer.getHashCount());
+
+		// Assert a later session finds the entry without hashing the source file
+		ThumbnailCache test = new ThumbnailCache(cacheFolder);
+		assertNotNull(test.read(source, TARGET));
+		assertNull(test.read(source, new Dimension(30, 30)));
+		assertEquals(0, test.getHashCount());
+	}
+
+	@Test
+	public void testChangedSource() throws IOException {
+		File source = copySource("one.jpg");
+		new ThumbnailCache(cacheFolder).write(source, TARGET, scaled);
+
+		// Assert a touched file is hashed once, and its entry kept
+		assertTrue(source.setLastModified(source.lastModified() - 60000));
+		ThumbnailCache test = new ThumbnailCache(cacheFolder);
+		assertNotNull(test.read(source, TARGET));
+		assertNotNull(test.read(source, TARGET));
+		assertEquals(1, test.getHashCount());
+
+		// Assert a file with new contents no longer finds the old entry
+		Files.write(source.toPath(), new byte[] { 1, 2, 3 });
+		test = new ThumbnailCache(cacheFolder);
+		assertNull(test.read(source, TARGET));
+
+		// Assert a new entry can be stored for the new contents
+		test.write(source, TARGET, scaled);
+		assertNotNull(new ThumbnailCache(cacheFolder).read(source, TARGET));
+	}
+
+	@Test
+	public void testEviction() throws IOException {
+		// Measure one entry and its stamp
+		ThumbnailCache measure = new ThumbnailCache(cacheFolder);
+		measure.write(copySource("measure.jpg"), TARGET, scaled);
+		long entryBytes = 0;
+		for (File file : cacheFolder.listFiles()) {
+			entryBytes += file.length();
+			file.delete();
+		}
+
+		// Fill a cache with a budget of four entries
+		ThumbnailCache test = new ThumbnailCache(cacheFolder, entryBytes * 4);
+		File[] sources = new File[5];
+		for (int i = 0; i < 4; ++i) {
+			sources[i] = copySource(i + ".jpg");
+			test.write(sources[i], TARGET, scaled);
+		}
+		assertEquals(8, cacheFolder.listFiles().length);
+
+		// Make every entry old, then use the first and last again
+		for (File file : cacheFolder.listFiles()) {
+			assertTrue(file.setLastModified(System.currentTimeMillis() - 60000));
+		}
+		assertNotNull(test.read(sources[0], TARGET));
+		assertNotNull(test.read(sources[3], TARGET));
+
+		// Assert storing a fifth entry evicts the two least recently used
+		sources[4] = copySource("4.jpg");
+		test.write(sources[4], TARGET, scaled);
+		long used = 0;
+		for (File file : cacheFolder.listFiles()) {
+			used += file.length();
+		}
+		assertTrue(used <= entryBytes * 4);
+		assertNotNull(test.read(sources[0], TARGET));
+		assertNull(test.read(sources[1], TARGET));
+		assertNull(test.read(sources[2], TARGET));
+		assertNotNull(test.read(sources[3], TARGET));
+		assertNotNull(test.read(sources[4], TARGET));
+	}
+
+}
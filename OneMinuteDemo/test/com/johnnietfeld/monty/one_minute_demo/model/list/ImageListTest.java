@@ -6,7 +6,10 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -15,6 +18,7 @@ import org.junit.Test;
 
 import com.johnnietfeld.monty.one_minute_demo.model.data.Category;
 import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
+import com.johnnietfeld.monty.one_minute_demo.model.data.ImageTable;
 
 public class ImageListTest {
 
@@ -148,11 +152,8 @@ public class ImageListTest {
 	@Test
 	public void testNext() {
 
-		// Set the random seed
-		ImageList.setRandSeed(RAND_SEED);
-
-		// Make valid ImageList
-		ImageList test = new ImageList(images);
+		// Make valid ImageList with a fixed seed
+		ImageList test = new ImageList(images, RAND_SEED);
 
 		// Assert default behavior
 		assertFalse(test.doesCycle());
@@ -206,6 +207,288 @@ public class ImageListTest {
 		}
 	}
 
+	@Test
+	public void testRandomizedCycleIsPermutation() {
+		// Make a cycling, randomizing ImageList
+		ImageList test = new ImageList(images);
+		test.setCycle(true);
+		test.setRandomizeCycle(true);
+
+		// Run through several cycles of the list
+		for (int cycle = 0; cycle < 3; ++cycle) {
+			// Each cycle should present every image exactly once
+			HashSet<ClassifiedImage> seen = new HashSet<ClassifiedImage>();
+			for (int i = 0; i < num_images; ++i) {
+				assertTrue("Image repeated within cycle " + cycle, seen.add(test.next()));
+			}
+			assertEquals(num_images, seen.size());
+			assertEquals(0, test.remaining());
+			assertEquals(num_images, test.size());
+		}
+	}
+
+	@Test
+	public void testSeed() {
+		// Make two cycling, randomizing ImageLists with the same seed
+		ImageList first = new ImageList(images, RAND_SEED);
+		ImageList second = new ImageList(images, RAND_SEED);
+		for (ImageList test : new ImageList[] { first, second }) {
+			test.setCycle(true);
+			test.setRandomizeCycle(true);
+		}
+		assertEquals(RAND_SEED, first.getSeed());
+
+		// Both deal the same order across several laps, even when one peeks ahead
+		List<ClassifiedImage> expected = first.peek(num_images * 3);
+		for (int i = 0; i < num_images * 3; ++i) {
+			assertTrue("Image " + i + " differs", expected.get(i) == second.next());
+		}
+
+		// Setting the seed again starts over in the same order
+		second.setSeed(RAND_SEED);
+		assertEquals(num_images, second.remaining());
+		assertEquals(expected, second.next(num_images * 3));
+
+		// A different seed gives a different order
+		second.setSeed(RAND_SEED + 1);
+		assertFalse(expected.equals(second.peek(num_images * 3)));
+	}
+
+	@Test
+	public void testMappedDeck() throws IOException {
+		File directory = Files.createTempDirectory("omg-decks").toFile();
+		try {
+			// Make one ImageList on the heap and one mapped, with the same seed
+			ImageTable table = ImageTable.of(images);
+			ImageList heap = new ImageList(table, RAND_SEED, null);
+			ImageList mapped = new ImageList(table, RAND_SEED, directory);
+			assertFalse(heap.isMapped());
+			assertTrue(mapped.isMapped());
+			for (ImageList test : new ImageList[] { heap, mapped }) {
+				test.setCycle(true);
+				test.setRandomizeCycle(true);
+			}
+
+			// Assert both deal the same images in the same order, across reshuffles
+			for (int i = 0; i < num_images * 3; ++i) {
+				assertTrue("Image " + i + " differs", heap.next() == mapped.next());
+			}
+			assertEquals(heap.remaining(), mapped.remaining());
+		} finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void testMappedDeckReuse() throws IOException, InterruptedException {
+		File directory = Files.createTempDirectory("omg-decks").toFile();
+		try {
+			// Deal many randomized laps from a mapped ImageList and one on the heap
+			ImageTable table = ImageTable.of(images);
+			ImageList heap = new ImageList(table, RAND_SEED, null);
+			int mappedBefore = Deck.getMappedCount();
+			ImageList mapped = new ImageList(table, RAND_SEED, directory);
+			assertEquals(2, Deck.getMappedCount() - mappedBefore);
+			for (ImageList test : new ImageList[] { heap, mapped }) {
+				test.setCycle(true);
+				test.setRandomizeCycle(true);
+			}
+			final int laps = 200;
+			for (int lap = 0; lap < laps; ++lap) {
+				HashSet<ClassifiedImage> seen = new HashSet<ClassifiedImage>();
+				for (int i = 0; i < num_images; ++i) {
+					ClassifiedImage image = mapped.next();
+					assertTrue("Lap " + lap + " image " + i + " differs", heap.next() == image);
+					seen.add(image);
+				}
+				assertEquals(num_images, seen.size());
+			}
+
+			// Assert no deck was mapped while dealing
+			assertEquals(2, Deck.getMappedCount() - mappedBefore);
+
+			// Deal many laps from several threads at once, with no image lost or repeated
+			final ImageList shared = new ImageList(table, RAND_SEED, directory);
+			shared.setCycle(true);
+			shared.setRandomizeCycle(true);
+			final int threads = 4;
+			final int perThread = num_images * laps / threads;
+			final int[][] counts = new int[threads][num_images];
+			Thread[] workers = new Thread[threads];
+			for (int t = 0; t < threads; ++t) {
+				final int[] mine = counts[t];
+				workers[t] = new Thread(() -> {
+					for (int i = 0; i < perThread; ++i) {
+						++mine[images.indexOf(shared.next())];
+					}
+				});
+			}
+			for (Thread worker : workers) {
+				worker.start();
+			}
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			for (int image = 0; image < num_images; ++image) {
+				int count = 0;
+				for (int t = 0; t < threads; ++t) {
+					count += counts[t][image];
+				}
+				assertEquals(laps, count);
+			}
+			assertEquals(4, Deck.getMappedCount() - mappedBefore);
+
+			// Assert peeking stops at the lap that would reuse the deck being dealt
+			ImageList peeked = new ImageList(table, RAND_SEED, directory);
+			peeked.setCycle(true);
+			peeked.setRandomizeCycle(true);
+			List<ClassifiedImage> upcoming = peeked.peek(num_images * 3);
+			assertEquals(num_images * 2, upcoming.size());
+			for (int i = 0; i < upcoming.size(); ++i) {
+				assertTrue("Peeked image " + i + " dealt out of order", upcoming.get(i) == peeked.next());
+			}
+		} finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void testMappedDeckFailure() {
+		// Assert a failed mapping keeps the reason it failed
+		File missing = new File("test-files", "no-such-directory");
+		try {
+			Deck.mapped(num_images, missing);
+			fail();
+		} catch (IllegalStateException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+
+		// Assert a list whose decks cannot be mapped fails when it is made, before any
+		// thread can claim an image of a lap that could not be decided
+		try {
+			new ImageList(ImageTable.of(images), RAND_SEED, missing);
+			fail();
+		} catch (IllegalStateException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+
+		// Assert a deck too large for one mapping is rejected before any file is made
+		try {
+			Deck.mapped(Deck.MAX_MAPPED_SIZE + 1, missing);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// Correct exception thrown
+		}
+	}
+
+	@Test
+	public void testPeek() {
+		// Make a cycling, randomizing ImageList
+		ImageList test = new ImageList(images);
+		test.setCycle(true);
+		test.setRandomizeCycle(true);
+
+		// Peek across two reshuffles without consuming anything
+		List<ClassifiedImage> upcoming = test.peek(num_images * 2 + 1);
+		assertEquals(num_images * 2 + 1, upcoming.size());
+		assertEquals(num_images, test.remaining());
+		assertEquals(upcoming.subList(0, 2), test.peek(2));
+
+		// The peeked images are dealt in the order seen, across the cycle boundary
+		for (int i = 0; i < upcoming.size(); ++i) {
+			assertTrue("Peeked image " + i + " dealt out of order", upcoming.get(i) == test.next());
+		}
+
+		// Every peeked lap is still a permutation of the images
+		HashSet<ClassifiedImage> lap = new HashSet<ClassifiedImage>(upcoming.subList(num_images, num_images * 2));
+		assertEquals(num_images, lap.size());
+
+		// A list that does not cycle only shows what remains
+		ImageList once = new ImageList(images);
+		once.next();
+		assertEquals(num_images - 1, once.peek(num_images * 2).size());
+		assertEquals(0, once.peek(0).size());
+
+		try {
+			once.peek(-1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// Correct exception thrown
+		}
+	}
+
+	@Test
+	public void testNextBatch() {
+		ImageList test = new ImageList(images);
+
+		// Take a batch, in the order peek showed
+		List<ClassifiedImage> expected = test.peek(2);
+		assertEquals(expected, test.next(2));
+		assertEquals(num_images - 2, test.remaining());
+
+		// A batch larger than what remains takes nothing when not cycling
+		try {
+			test.next(num_images);
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals(num_images - 2, test.remaining());
+		}
+
+		// A cycling list can hand out more than one lap at once
+		test.setCycle(true);
+		assertEquals(num_images * 2, test.next(num_images * 2).size());
+		assertEquals(num_images - 2, test.remaining());
+	}
+
+	@Test
+	public void testConcurrentNext() throws InterruptedException {
+		// Make a cycling, randomizing ImageList, dealt from by several threads at once
+		final ImageList test = new ImageList(images);
+		test.setCycle(true);
+		test.setRandomizeCycle(true);
+		final int threads = 4;
+		final int laps = 200;
+		final int perThread = num_images * laps / threads;
+
+		// Each thread records the images it was dealt
+		final List<List<ClassifiedImage>> dealt = new ArrayList<List<ClassifiedImage>>();
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; ++t) {
+			final List<ClassifiedImage> mine = new ArrayList<ClassifiedImage>();
+			dealt.add(mine);
+			workers[t] = new Thread(() -> {
+				for (int i = 0; i < perThread; ++i) {
+					mine.add(test.next());
+				}
+			});
+		}
+		for (Thread worker : workers) {
+			worker.start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		// Every lap was dealt exactly once, with no image lost or repeated
+		int[] counts = new int[num_images];
+		for (List<ClassifiedImage> mine : dealt) {
+			assertEquals(perThread, mine.size());
+			for (ClassifiedImage image : mine) {
+				++counts[images.indexOf(image)];
+			}
+		}
+		for (int count : counts) {
+			assertEquals(laps, count);
+		}
+		assertEquals(0, test.remaining());
+	}
+
 //	private void writeExpectedOrder() {
 //		
 //	}
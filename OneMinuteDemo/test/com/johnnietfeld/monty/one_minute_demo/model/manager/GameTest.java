@@ -21,6 +21,7 @@ import com.johnnietfeld.monty.one_minute_demo.model.data.Category;
 import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
 import com.johnnietfeld.monty.one_minute_demo.model.list.ImageList;
 
+@SuppressWarnings("deprecation")
 public class GameTest {
 
 	/** Source list of images to make new ImageLists and Games for testing */
@@ -330,6 +331,18 @@ public class GameTest {
 		// Score it correctly and assert score has changed as a result
 		assertEquals(CORRECT_INCREMENT + INCORRECT_DECREMENT, test.scoreImage(second, new Category("Different")));
 		assertEquals(CORRECT_INCREMENT + INCORRECT_DECREMENT, test.getScore());
+
+		// Assert each placement was counted against the placed image's Category
+		int correct = 0;
+		int incorrect = 0;
+		for (Category category : test.getCategories()) {
+			correct += test.getCorrectCount(category);
+			incorrect += test.getIncorrectCount(category);
+		}
+		assertEquals(1, correct);
+		assertEquals(1, incorrect);
+		assertEquals(1, test.getCorrectCount(new Category(first.getCategory().getName())));
+		assertEquals(0, test.getCorrectCount(new Category("Different")));
 	}
 
 	/**
@@ -0,0 +1,143 @@
+package com.johnnietfeld.monty.one_minute_demo.model.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.johnnietfeld.monty.one_minute_demo.model.data.Category;
+import com.johnnietfeld.monty.one_minute_demo.model.data.ClassifiedImage;
+import com.johnnietfeld.monty.one_minute_demo.model.list.ImageList;
+
+public class ImageLifecycleTest {
+
+	/** Folder location containing test images */
+	private static final String IMAGES_LOCATION = "test-files";
+	/** Images of the Game used for testing */
+	private ArrayList<ClassifiedImage> images;
+	/** ImageLifecycle used for testing */
+	private ImageLifecycle test;
+
+	/**
+	 * Creates a fresh two-image game and lifecycle before each test
+	 */
+	@Before
+	public void setUp() {
+		File[] files = new File(IMAGES_LOCATION).listFiles();
+		images = new ArrayList<ClassifiedImage>();
+		images.add(new ClassifiedImage(files[0].getAbsolutePath(), new Category("one"), files[0].getName()));
+		images.add(new ClassifiedImage(files[1].getAbsolutePath(), new Category("two"), files[1].getName()));
+		test = new ImageLifecycle(new Game("Do the thing", new ImageList(images), false));
+	}
+
+	@Test
+	public void testImageLifecycle() {
+		// Assert invalid null game
+		try {
+			new ImageLifecycle(null);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// Correct exception thrown
+		}
+		assertEquals(0, test.leased());
+		assertEquals(0, test.getDecodeCount());
+	}
+
+	@Test
+	public void testAcquireRelease() {
+		ClassifiedImage image = images.get(0);
+
+		// Assert acquiring loads the image once
+		ImageLease first = test.acquire(image, null);
+		assertTrue(image.isLoaded());
+		assertEquals(1, test.leased());
+		assertEquals(1, test.getDecodeCount());
+
+		// Assert acquiring the same image again shares the lease without decoding
+		ImageLease second = test.acquire(image, null);
+		assertTrue(first == second);
+		assertTrue(first.getIcon() == second.getIcon());
+		assertEquals(1, test.getDecodeCount());
+
+		// Assert the image stays loaded until every holder has released it
+		first.release();
+		assertFalse(first.isReleased());
+		assertTrue(image.isLoaded());
+		second.release();
+		assertTrue(first.isReleased());
+		assertFalse(image.isLoaded());
+		assertEquals(0, test.leased());
+
+		// Assert a released lease cannot be released or retained again
+		try {
+			first.release();
+			fail();
+		} catch (IllegalStateException e) {
+			// Correct exception thrown
+		}
+		try {
+			first.retain();
+			fail();
+		} catch (IllegalStateException e) {
+			// Correct exception thrown
+		}
+
+		// Assert acquiring a released image decodes it again
+		test.acquire(image, null).release();
+		assertEquals(2, test.getDecodeCount());
+	}
+
+	@Test
+	public void testAcquireLarger() {
+		ClassifiedImage image = new ClassifiedImage(new File(IMAGES_LOCATION, "a.jpg").getAbsolutePath(),
+				new Category("one"), "a.jpg");
+
+		// Assert a lease is loaded to fit its first target
+		ImageLease small = test.acquire(image, new Dimension(50, 50));
+		assertTrue(small.getIcon().getIconWidth() <= 50);
+		assertEquals(1, test.getDecodeCount());
+
+		// Assert a larger target loads the shared image again at the larger size
+		ImageLease large = test.acquire(image, new Dimension(200, 200));
+		assertTrue(small == large);
+		assertTrue(large.getIcon().getIconWidth() > 50);
+		assertEquals(2, test.getDecodeCount());
+
+		// Assert a smaller target shares the larger image without decoding
+		test.acquire(image, new Dimension(20, 20)).release();
+		assertTrue(large.getIcon().getIconWidth() > 50);
+		assertEquals(2, test.getDecodeCount());
+		small.release();
+		large.release();
+		assertEquals(0, test.leased());
+	}
+
+	@Test
+	public void testAcquireNext() {
+		// Assert every image of the game can be acquired once
+		ImageLease first = test.acquireNext(null);
+		ImageLease second = test.acquireNext(null);
+		assertTrue(first.getImage() != second.getImage());
+		assertEquals(2, test.leased());
+		assertEquals(2, test.getDecodeCount());
+
+		// Assert the game runs out of images without recycling
+		try {
+			test.acquireNext(null);
+			fail();
+		} catch (IllegalStateException e) {
+			// Correct exception thrown
+		}
+		first.release();
+		second.release();
+		assertEquals(0, test.leased());
+	}
+
+}
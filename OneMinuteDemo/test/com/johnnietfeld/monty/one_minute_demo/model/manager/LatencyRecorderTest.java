@@ -0,0 +1,51 @@
+package com.johnnietfeld.monty.one_minute_demo.model.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class LatencyRecorderTest {
+
+	@Test
+	public void testPercentiles() {
+		LatencyRecorder test = new LatencyRecorder();
+		assertEquals(0, test.getCount());
+		assertEquals(0, test.getPercentile(50));
+
+		// Record 1 through 100 out of order
+		for (int i = 100; i >= 1; --i) {
+			test.record(i);
+		}
+		assertEquals(100, test.getCount());
+		assertEquals(50, test.getMean());
+		assertEquals(100, test.getMax());
+		assertEquals(1, test.getPercentile(0));
+		assertEquals(50, test.getPercentile(50));
+		assertEquals(99, test.getPercentile(99));
+		assertEquals(100, test.getPercentile(100));
+
+		try {
+			test.getPercentile(101);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("Percentile must be between 0 and 100", e.getMessage());
+		}
+
+		test.reset();
+		assertEquals(0, test.getCount());
+		assertEquals(0, test.getMax());
+	}
+
+	@Test
+	public void testBoundedSamples() {
+		LatencyRecorder test = new LatencyRecorder();
+		for (int i = 0; i < LatencyRecorder.MAX_SAMPLES * 2; ++i) {
+			test.record(7);
+		}
+		assertEquals(LatencyRecorder.MAX_SAMPLES * 2, test.getCount());
+		assertEquals(7, test.getPercentile(50));
+		assertEquals(7, test.getPercentile(99));
+	}
+
+}